@@ -69,6 +69,12 @@ CREATE TABLE `system_constant` (
   `is_active` TINYINT(1)
 );
 
+-- 序列表（请求ID、详单编号等按号段分配）
+CREATE TABLE `id_sequence` (
+  `sequence_name` VARCHAR(50) PRIMARY KEY,
+  `next_value` BIGINT
+);
+
 -- =====================================
 -- 数据插入语句
 -- =====================================
@@ -85,7 +91,10 @@ INSERT INTO `charging_pile` (`pile_number`, `pile_type`, `charging_power`, `stat
 INSERT INTO `system_config` (`config_key`, `config_value`, `description`) VALUES
 ('waiting_area_capacity', '6', '等候区最大车位容量'),
 ('pile_queue_length', '2', '充电桩队列长度'),
-('schedule_strategy', 'ORIGINAL', '调度策略，可选值：ORIGINAL(原始调度)、SINGLE_BATCH_OPTIMAL(单次调度最优)、FULL_BATCH_OPTIMAL(批量调度最优)');
+('schedule_strategy', 'ORIGINAL', '调度策略，可选值：ORIGINAL(原始调度)、SINGLE_BATCH_OPTIMAL(单次调度最优)、FULL_BATCH_OPTIMAL(批量调度最优)'),
+('batch_solver_mode', 'EXACT', '批次调度求解模式，可选值：EXACT(精确求解)、ANYTIME(限时求解，超出预算时返回当前最好方案)'),
+('batch_solver_time_budget_ms', '200', 'ANYTIME模式下每轮调度的求解时间预算(毫秒)'),
+('shadow_schedule_strategy', 'NONE', '影子调度策略，在同一快照上试运行但不生效，用于与当前策略对比；NONE表示不启用');
 
 -- 插入系统常量数据
 INSERT INTO `system_constant` (`constant_key`, `constant_value`, `constant_type`, `description`, `is_active`) VALUES
@@ -1,7 +1,10 @@
 package com.example.backend.config;
 
+import com.example.backend.service.ChargingBillService;
 import com.example.backend.service.ChargingPileMonitorService;
+import com.example.backend.service.ChargingRequestService;
 import com.example.backend.service.SystemConstantService;
+import com.example.backend.service.scheduler.WaitingAreaQueue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
@@ -22,6 +25,15 @@ public class SystemInitializer implements ApplicationRunner {
     @Autowired
     private ChargingPileMonitorService chargingPileMonitorService;
     
+    @Autowired
+    private WaitingAreaQueue waitingAreaQueue;
+    
+    @Autowired
+    private ChargingRequestService chargingRequestService;
+    
+    @Autowired
+    private ChargingBillService chargingBillService;
+    
     @Override
     public void run(ApplicationArguments args) throws Exception {
         // 加载系统常量到内存
@@ -29,6 +41,15 @@ public class SystemInitializer implements ApplicationRunner {
         
         // 初始化充电桩状态缓存
         initializePileStatusCache();
+        
+        // 加载等候区队列
+        initializeWaitingAreaQueue();
+        
+        // 初始化请求ID序列
+        initializeRequestIdSequences();
+        
+        // 准备当天的详单编号序列
+        initializeBillNumberSequence();
     }
     
     /**
@@ -52,4 +73,39 @@ public class SystemInitializer implements ApplicationRunner {
         } catch (Exception e) {
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 初始化等候区队列
+     * 从数据库加载等候区中的请求，之后由请求状态变化增量维护
+     */
+    private void initializeWaitingAreaQueue() {
+        try {
+            waitingAreaQueue.reload();
+        } catch (Exception e) {
+        }
+    }
+    
+    /**
+     * 初始化请求ID序列
+     * 序列不存在时按已有请求ID的最大序号创建，之后分配请求ID不再扫描请求表
+     */
+    private void initializeRequestIdSequences() {
+        try {
+            chargingRequestService.initializeRequestIdSequences();
+        } catch (Exception e) {
+            // 初始化失败时在首次分配请求ID时再创建序列
+        }
+    }
+    
+    /**
+     * 准备当天的详单编号序列
+     * 按已有详单恢复当天序列并预留号段，生成详单时不再查询详单表
+     */
+    private void initializeBillNumberSequence() {
+        try {
+            chargingBillService.initializeBillNumberSequence();
+        } catch (Exception e) {
+            // 初始化失败时在首次生成详单时再创建序列
+        }
+    }
+}
@@ -82,7 +82,8 @@ public class WebSecurityConfig {
                 .requestMatchers(SecurityConstants.LOGIN_PATH, SecurityConstants.REGISTER_PATH).permitAll()
                 // 允许所有SSE相关端点，这些端点将在控制器中进行令牌验证
                 // 注意：前端通过/api/xxx访问，经过代理后变成/xxx，所以这里的路径不需要/api前缀
-                .requestMatchers("/pricing/stream", "/pricing/stream/**", 
+                .requestMatchers("/stream",
+                                "/pricing/stream", "/pricing/stream/**",
                                 "/charge/status/stream/**",
                                 "/queue/status/stream/**",
                                 "/notifications/connect", "/notifications/**").permitAll()
@@ -32,13 +32,31 @@ public class ChargingConstants {
     public static final String CONFIG_SCHEDULE_STRATEGY = "schedule_strategy";  // 调度策略配置键
     public static final String CONFIG_FAST_BATCH_THRESHOLD = "fast_batch_threshold";  // 快充批次调度触发阈值
     public static final String CONFIG_SLOW_BATCH_THRESHOLD = "slow_batch_threshold";  // 慢充批次调度触发阈值
+    public static final String CONFIG_BATCH_THRESHOLD_SUFFIX = "_batch_threshold";  // 批次调度触发阈值配置键后缀（充电模式 + 后缀）
+    public static final String CONFIG_BATCH_SOLVER_MODE = "batch_solver_mode";  // 批次调度求解模式
+    public static final String CONFIG_BATCH_SOLVER_TIME_BUDGET_MS = "batch_solver_time_budget_ms";  // 每轮调度的求解时间预算（毫秒）
+    public static final String CONFIG_SHADOW_SCHEDULE_STRATEGY = "shadow_schedule_strategy";  // 影子调度策略，为空或NONE时不启用
     
     // 调度策略
     public static final String SCHEDULE_STRATEGY_ORIGINAL = "ORIGINAL";  // 原始算法
     public static final String SCHEDULE_STRATEGY_SINGLE_BATCH_OPTIMAL = "SINGLE_BATCH_OPTIMAL";  // 单批次最优
     public static final String SCHEDULE_STRATEGY_FULL_BATCH_OPTIMAL = "FULL_BATCH_OPTIMAL";  // 全批次最优
     
+    // 批次调度求解模式
+    public static final String BATCH_SOLVER_MODE_EXACT = "EXACT";  // 精确求解，不限时
+    public static final String BATCH_SOLVER_MODE_ANYTIME = "ANYTIME";  // 限时求解，超出预算时返回当前最好方案
+    
     // 请求ID前缀
     public static final String REQUEST_PREFIX_FAST = "F";  // 快充请求前缀
     public static final String REQUEST_PREFIX_SLOW = "T";  // 慢充请求前缀
+    
+    // 序列名称前缀
+    public static final String SEQUENCE_REQUEST_ID_PREFIX = "request_id_";  // 请求ID序列，后接请求ID前缀
+    public static final String SEQUENCE_BILL_NUMBER_PREFIX = "bill_number_";  // 详单编号序列，按天划分，后接当天的编号前缀
+    
+    // SSE事件名称
+    public static final String SSE_EVENT_CHARGING_STATUS = "charging-status";  // 充电状态
+    public static final String SSE_EVENT_QUEUE_STATUS = "queue-status";  // 队列状态
+    public static final String SSE_EVENT_NOTIFICATION = "notification";  // 通知消息
+    public static final String SSE_EVENT_PRICING = "pricing";  // 电价信息
 } 
\ No newline at end of file
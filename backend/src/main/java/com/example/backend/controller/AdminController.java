@@ -5,6 +5,7 @@ import com.example.backend.model.entity.SystemConfig;
 import com.example.backend.service.ChargingPileService;
 import com.example.backend.service.ChargingBillService;
 import com.example.backend.service.ChargingRequestService;
+import com.example.backend.service.SchedulerService;
 import com.example.backend.service.SystemConfigService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,15 +27,18 @@ public class AdminController extends BaseController {
     private final ChargingBillService chargingBillService;
     private final ChargingRequestService chargingRequestService;
     private final SystemConfigService systemConfigService;
+    private final SchedulerService schedulerService;
     
     public AdminController(ChargingPileService chargingPileService, 
                           ChargingBillService chargingBillService,
                           ChargingRequestService chargingRequestService,
-                          SystemConfigService systemConfigService) {
+                          SystemConfigService systemConfigService,
+                          SchedulerService schedulerService) {
         this.chargingPileService = chargingPileService;
         this.chargingBillService = chargingBillService;
         this.chargingRequestService = chargingRequestService;
         this.systemConfigService = systemConfigService;
+        this.schedulerService = schedulerService;
     }
     
     /**
@@ -213,6 +217,78 @@ public class AdminController extends BaseController {
         }
     }
     
+    /**
+     * 获取调度运行统计
+     * @return 当前调度策略、各策略的求解耗时、分配车辆数、目标值以及限时求解统计
+     */
+    @GetMapping("/scheduler/metrics")
+    public ResponseEntity<Map<String, Object>> getSchedulerMetrics() {
+        // 检查是否有管理员权限
+        if (!hasAuthority("ROLE_ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+        
+        return ResponseEntity.ok(schedulerService.getSchedulerMetrics());
+    }
+    
+    /**
+     * 获取影子调度对比统计
+     * @return 候选策略相对当前策略的目标值差、makespan差、求解耗时和分配不一致比例
+     */
+    @GetMapping("/scheduler/shadow")
+    public ResponseEntity<Map<String, Object>> getShadowSchedulerMetrics() {
+        // 检查是否有管理员权限
+        if (!hasAuthority("ROLE_ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+        
+        return ResponseEntity.ok(schedulerService.getShadowMetrics());
+    }
+    
+    /**
+     * 获取活跃请求缓存统计
+     * @return 命中数、未命中数、缓存用户数和一致性校验结果
+     */
+    @GetMapping("/cache/active-request")
+    public ResponseEntity<Map<String, Object>> getActiveRequestCacheMetrics() {
+        // 检查是否有管理员权限
+        if (!hasAuthority("ROLE_ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+        
+        return ResponseEntity.ok(chargingRequestService.getActiveRequestCacheMetrics());
+    }
+    
+    /**
+     * 开启或关闭活跃请求缓存的一致性校验模式
+     * @param enabled 是否开启
+     * @return 更新后的缓存统计
+     */
+    @PutMapping("/cache/active-request/consistency-check")
+    public ResponseEntity<Map<String, Object>> setActiveRequestCacheConsistencyCheck(@RequestParam boolean enabled) {
+        // 检查是否有管理员权限
+        if (!hasAuthority("ROLE_ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+        
+        chargingRequestService.setActiveRequestCacheConsistencyCheck(enabled);
+        return ResponseEntity.ok(chargingRequestService.getActiveRequestCacheMetrics());
+    }
+
+    /**
+     * 获取SSE推送统计
+     * @return 连接数、队列深度、合并和丢弃条数、发送失败次数和发送延迟
+     */
+    @GetMapping("/sse/metrics")
+    public ResponseEntity<Map<String, Object>> getSseMetrics() {
+        // 检查是否有管理员权限
+        if (!hasAuthority("ROLE_ADMIN")) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(sseManager.getMetrics());
+    }
+
     /**
      * 获取配置项的显示名称
      */
@@ -228,6 +304,12 @@ public class AdminController extends BaseController {
                 return "充电桩排队队列长度";
             case "schedule_strategy":
                 return "调度算法策略";
+            case "batch_solver_mode":
+                return "批次调度求解模式";
+            case "shadow_schedule_strategy":
+                return "影子调度策略";
+            case "batch_solver_time_budget_ms":
+                return "批次调度求解时间预算(毫秒)";
             default:
                 return configKey;
         }
@@ -242,8 +324,11 @@ public class AdminController extends BaseController {
             case "TrickleChargingPileNum":
             case "WaitingAreaSize":
             case "ChargingQueueLen":
+            case "batch_solver_time_budget_ms":
                 return "number";
             case "schedule_strategy":
+            case "batch_solver_mode":
+            case "shadow_schedule_strategy":
                 return "select";
             default:
                 return "text";
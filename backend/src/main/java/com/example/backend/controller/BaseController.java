@@ -38,14 +38,40 @@ public abstract class BaseController {
     }
     
     /**
-     * 创建SSE发射器的通用方法
-     * @param key 发射器标识
+     * 创建只订阅一种事件的SSE发射器的通用方法
+     * @param userId 用户ID
+     * @param event 事件名称
+     * @param lastEventIdHeader 请求头Last-Event-ID，可以为null
+     * @param lastEventIdParam 查询参数lastEventId，可以为null
      * @param statusSupplier 状态供应商
      * @param <T> 状态类型
      * @return SSE发射器
      */
-    protected <T> SseEmitter createSseEmitter(String key, Supplier<T> statusSupplier) {
-        return sseManager.createEmitter(key, statusSupplier);
+    protected <T> SseEmitter createSseEmitter(Long userId, String event, String lastEventIdHeader,
+                                              String lastEventIdParam, Supplier<T> statusSupplier) {
+        return sseManager.createEmitter(userId, event, parseLastEventId(lastEventIdHeader, lastEventIdParam),
+            statusSupplier);
+    }
+    
+    /**
+     * 解析客户端收到的最后一个事件ID
+     * 浏览器自动重连时带请求头Last-Event-ID；客户端自行重建连接时无法设置请求头，与token一样通过查询参数lastEventId传递。
+     * 两者都有时以请求头为准
+     * @param lastEventIdHeader 请求头的值
+     * @param lastEventIdParam 查询参数的值
+     * @return 事件ID，没有或格式错误时返回null，按首次连接处理
+     */
+    protected Long parseLastEventId(String lastEventIdHeader, String lastEventIdParam) {
+        String lastEventId = lastEventIdHeader != null && !lastEventIdHeader.trim().isEmpty()
+            ? lastEventIdHeader : lastEventIdParam;
+        if (lastEventId == null || lastEventId.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
     
     /**
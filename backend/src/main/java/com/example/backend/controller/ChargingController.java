@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.constant.ChargingConstants;
 import com.example.backend.model.dto.ChargingRequestDTO;
 import com.example.backend.model.dto.ChargingResponseDTO;
 import com.example.backend.model.dto.ChargingStatusDTO;
@@ -178,13 +179,15 @@ public class ChargingController extends BaseController {
      */
     @GetMapping(value = "/status/stream/user", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter streamUserChargingStatus(
-            @RequestParam(name = "token", required = true) String token) {
+            @RequestParam(name = "token", required = true) String token,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
         
         Long userId = validateAndSetSecurityContext(token);
-        String userKey = "charge_user_" + userId;  // 使用不同的key前缀避免与队列状态连接冲突
         
-        SseEmitter emitter = createSseEmitter(userKey, 
-            () -> chargingRequestService.getActiveChargingStatus(userId));
+        // 只订阅充电状态的连接，新客户端可以改用多路连接 /stream
+        SseEmitter emitter = createSseEmitter(userId, ChargingConstants.SSE_EVENT_CHARGING_STATUS,
+            lastEventIdHeader, lastEventIdParam, () -> chargingRequestService.getActiveChargingStatus(userId));
         return emitter;
     }
     
@@ -198,10 +201,12 @@ public class ChargingController extends BaseController {
      */
     private void pushChargingStatusUpdate(Long userId, String operation, String requestId) {
         try {
-            String userKey = "charge_user_" + userId;
+            if (!sseManager.isConnected(userId, ChargingConstants.SSE_EVENT_CHARGING_STATUS)) {
+                return;
+            }
             ChargingStatusDTO statusDTO = chargingRequestService.getActiveChargingStatus(userId);
             if (statusDTO != null) {
-                sseManager.sendToEmitter(userKey, statusDTO);
+                sseManager.sendToUser(userId, ChargingConstants.SSE_EVENT_CHARGING_STATUS, statusDTO);
             }
         } catch (Exception e) {
         }
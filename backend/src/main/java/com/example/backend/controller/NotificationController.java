@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.constant.ChargingConstants;
 import com.example.backend.model.dto.PileFailureNotificationDTO;
 import com.example.backend.model.entity.User;
 import com.example.backend.service.UserService;
@@ -33,7 +34,9 @@ public class NotificationController extends BaseController {
      * @return SSE发射器
      */
     @GetMapping(value = "/connect", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter connectNotifications(@RequestParam("token") String token) {
+    public SseEmitter connectNotifications(@RequestParam("token") String token,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
         // 验证token并获取用户ID
         Long userId = validateAndSetSecurityContext(token);
         if (userId == null) {
@@ -46,11 +49,9 @@ public class NotificationController extends BaseController {
             throw new RuntimeException("用户不存在");
         }
         
-        // 创建通知连接的key
-        String notificationKey = "notification_user_" + userId;
-        
-        // 创建SSE连接，初始状态为空通知
-        SseEmitter emitter = createSseEmitter(notificationKey, () -> {
+        // 创建只订阅通知的SSE连接，初始状态为空通知，新客户端可以改用多路连接 /stream
+        SseEmitter emitter = createSseEmitter(userId, ChargingConstants.SSE_EVENT_NOTIFICATION,
+            lastEventIdHeader, lastEventIdParam, () -> {
             // 连接建立时发送一个确认消息
             return new PileFailureNotificationDTO(
                 "SYSTEM", 
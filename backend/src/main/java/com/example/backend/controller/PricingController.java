@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.constant.ChargingConstants;
 import com.example.backend.model.dto.PricingInfoDTO;
 import com.example.backend.service.PricingService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,12 +54,14 @@ public class PricingController extends BaseController {
      * 建立SSE连接，获取价格信息流
      */
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamPricingUpdates(@RequestParam(name = "token", required = true) String token) {
-        validateAndSetSecurityContext(token);
+    public SseEmitter streamPricingUpdates(@RequestParam(name = "token", required = true) String token,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
+        Long userId = validateAndSetSecurityContext(token);
         
-        String emitterKey = "pricing_" + System.currentTimeMillis();
-        SseEmitter emitter = createSseEmitter(emitterKey, 
-            () -> pricingService.getCurrentPricingInfo());
+        // 只订阅电价的连接，新客户端可以改用多路连接 /stream
+        SseEmitter emitter = createSseEmitter(userId, ChargingConstants.SSE_EVENT_PRICING,
+            lastEventIdHeader, lastEventIdParam, () -> pricingService.getCurrentPricingInfo());
         return emitter;
     }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.constant.ChargingConstants;
 import com.example.backend.model.dto.QueueStatusDTO;
 import com.example.backend.service.QueueService;
 import org.springframework.http.MediaType;
@@ -37,13 +38,15 @@ public class QueueController extends BaseController {
      */
     @GetMapping(value = "/status/stream/user", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter streamUserQueueStatus(
-            @RequestParam(name = "token", required = true) String token) {
+            @RequestParam(name = "token", required = true) String token,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
         
         Long userId = validateAndSetSecurityContext(token);
-        String userKey = "queue_user_" + userId;
         
-        SseEmitter emitter = createSseEmitter(userKey, 
-            () -> queueService.getUserQueueStatus(userId));
+        // 只订阅队列状态的连接，新客户端可以改用多路连接 /stream
+        SseEmitter emitter = createSseEmitter(userId, ChargingConstants.SSE_EVENT_QUEUE_STATUS,
+            lastEventIdHeader, lastEventIdParam, () -> queueService.getUserQueueStatus(userId));
         return emitter;
     }
 } 
\ No newline at end of file
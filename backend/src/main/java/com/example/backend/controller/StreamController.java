@@ -0,0 +1,58 @@
+package com.example.backend.controller;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.service.ChargingRequestService;
+import com.example.backend.service.PricingService;
+import com.example.backend.service.QueueService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 多路推送控制器
+ * 一个SSE连接接收用户的全部推送，按事件名称区分：
+ * charging-status（充电状态）、queue-status（队列状态）、notification（通知）、pricing（电价）
+ * 遵循单一职责原则：只负责处理HTTP请求和响应
+ */
+@RestController
+@RequestMapping("/stream")
+@CrossOrigin(origins = "*")
+public class StreamController extends BaseController {
+
+    private final ChargingRequestService chargingRequestService;
+    private final QueueService queueService;
+    private final PricingService pricingService;
+
+    public StreamController(ChargingRequestService chargingRequestService, QueueService queueService,
+                            PricingService pricingService) {
+        this.chargingRequestService = chargingRequestService;
+        this.queueService = queueService;
+        this.pricingService = pricingService;
+    }
+
+    /**
+     * 建立多路SSE连接
+     * 连接建立后立即推送当前的充电状态、队列状态和电价，之后按事件推送变化；
+     * 重连时带上收到的最后一个事件ID（请求头Last-Event-ID或查询参数lastEventId），只补发断线期间错过的事件
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(name = "token", required = true) String token,
+                             @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
+        Long userId = validateAndSetSecurityContext(token);
+
+        Map<String, Supplier<?>> initialEvents = new LinkedHashMap<>();
+        initialEvents.put(ChargingConstants.SSE_EVENT_CHARGING_STATUS,
+            () -> chargingRequestService.getActiveChargingStatus(userId));
+        initialEvents.put(ChargingConstants.SSE_EVENT_QUEUE_STATUS,
+            () -> queueService.getUserQueueStatus(userId));
+        initialEvents.put(ChargingConstants.SSE_EVENT_PRICING,
+            () -> pricingService.getCurrentPricingInfo());
+
+        return sseManager.createStream(userId, parseLastEventId(lastEventIdHeader, lastEventIdParam), initialEvents);
+    }
+}
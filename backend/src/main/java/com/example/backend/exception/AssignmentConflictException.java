@@ -0,0 +1,25 @@
+package com.example.backend.exception;
+
+/**
+ * 调度分配冲突异常
+ * 批量写入分配结果时实际更新行数与计划不一致（请求在调度期间被取消或修改）
+ */
+public class AssignmentConflictException extends RuntimeException {
+    
+    private final int expected;
+    private final int applied;
+    
+    public AssignmentConflictException(int expected, int applied) {
+        super("调度分配冲突：计划更新 " + expected + " 条请求，实际更新 " + applied + " 条");
+        this.expected = expected;
+        this.applied = applied;
+    }
+    
+    public int getExpected() {
+        return expected;
+    }
+    
+    public int getApplied() {
+        return applied;
+    }
+}
@@ -87,7 +87,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * 这些端点通过URL参数传递token，在控制器中单独验证
      */
     private boolean isSSEEndpoint(String requestURI) {
-        return requestURI.startsWith("/pricing/stream") ||
+        return requestURI.equals("/stream") ||
+               requestURI.startsWith("/pricing/stream") ||
                requestURI.startsWith("/charge/status/stream") ||
                requestURI.startsWith("/queue/status/stream") ||
                requestURI.startsWith("/notifications/");
@@ -0,0 +1,46 @@
+package com.example.backend.infrastructure.sequence;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 序列分配器接口
+ * 按序列名称分配全局唯一、递增的序号，多个后端实例共用同一序列时也不会重复
+ */
+public interface SequenceAllocator {
+
+    /**
+     * 分配序列的下一个值
+     * @param sequenceName 序列名称
+     * @param seed 序列尚不存在时计算第一个值，只在创建序列时调用
+     * @return 分配的值
+     */
+    long next(String sequenceName, LongSupplier seed);
+
+    /**
+     * 确保序列存在，不存在时按seed创建，不分配任何值
+     * @param sequenceName 序列名称
+     * @param seed 序列尚不存在时计算第一个值
+     */
+    void ensureSequence(String sequenceName, LongSupplier seed);
+
+    /**
+     * 预先为当前实例预留号段，之后的分配在号段用完前不访问数据库
+     * 当前号段未用完时不做任何操作
+     * @param sequenceName 序列名称
+     * @param seed 序列尚不存在时计算第一个值
+     */
+    void prefetch(String sequenceName, LongSupplier seed);
+
+    /**
+     * 丢弃当前实例持有的号段，用于不再使用的序列（如按天划分的过期序列）
+     * @param sequenceName 序列名称
+     */
+    void release(String sequenceName);
+
+    /**
+     * 删除按名称排在保留界限之前的同前缀序列，并丢弃当前实例持有的对应号段，用于清理按天划分的过期序列
+     * @param sequenceNamePrefix 序列名称前缀
+     * @param oldestRetained 保留的最早的序列名称，需以sequenceNamePrefix开头
+     */
+    void removeBefore(String sequenceNamePrefix, String oldestRetained);
+}
@@ -0,0 +1,131 @@
+package com.example.backend.infrastructure.sequence;
+
+import com.example.backend.mapper.IdSequenceMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 号段式序列分配器实现类
+ * 每次从序列表中预留一段连续的值（号段）保存在内存中，号段内的分配只在内存中递增，O(1)；
+ * 号段用完后才访问数据库预留下一段。
+ *
+ * 预留号段在独立的新事务中执行并立即提交：调用方事务回滚不会退回已预留的号段，
+ * 也不会长时间持有序列行锁。多个实例通过行锁串行预留，各自持有的号段互不重叠。
+ * 实例重启时未用完的号段被丢弃，序号可能不连续，但不会重复。
+ *
+ * 序列不存在时先用不加锁的查询判断，INSERT IGNORE 创建后再锁定已存在的行：
+ * 对不存在的行加锁读取会在索引上加间隙锁，多个实例同时创建同一序列时会与彼此的插入死锁。
+ */
+@Component
+public class SequenceAllocatorImpl implements SequenceAllocator {
+
+    // 每次预留的号段长度
+    private static final int BLOCK_SIZE = 20;
+
+    @Autowired
+    private IdSequenceMapper idSequenceMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 序列名称 -> 当前实例持有的号段
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long next(String sequenceName, LongSupplier seed) {
+        Block block = blocks.computeIfAbsent(sequenceName, k -> new Block());
+        synchronized (block) {
+            refill(block, sequenceName, seed);
+            return block.next++;
+        }
+    }
+
+    @Override
+    public void prefetch(String sequenceName, LongSupplier seed) {
+        Block block = blocks.computeIfAbsent(sequenceName, k -> new Block());
+        synchronized (block) {
+            refill(block, sequenceName, seed);
+        }
+    }
+
+    @Override
+    public void release(String sequenceName) {
+        blocks.remove(sequenceName);
+    }
+
+    @Override
+    public void removeBefore(String sequenceNamePrefix, String oldestRetained) {
+        blocks.keySet().removeIf(name -> name.startsWith(sequenceNamePrefix) && name.compareTo(oldestRetained) < 0);
+        idSequenceMapper.deleteBefore(sequenceNamePrefix, oldestRetained);
+    }
+
+    @Override
+    public void ensureSequence(String sequenceName, LongSupplier seed) {
+        requiresNew.executeWithoutResult(status -> createIfAbsent(sequenceName, seed));
+    }
+
+    /**
+     * 号段用完时预留下一段，调用方持有号段的锁
+     */
+    private void refill(Block block, String sequenceName, LongSupplier seed) {
+        if (block.next >= block.limit) {
+            long start = reserveBlock(sequenceName, seed);
+            block.next = start;
+            block.limit = start + BLOCK_SIZE;
+        }
+    }
+
+    /**
+     * 在新事务中预留一个号段
+     * @return 号段的第一个值
+     */
+    private long reserveBlock(String sequenceName, LongSupplier seed) {
+        Long start = requiresNew.execute(status -> {
+            // 序列行存在后才加锁读取（并发创建时以先插入的为准）
+            createIfAbsent(sequenceName, seed);
+            Long nextValue = idSequenceMapper.selectNextValueForUpdate(sequenceName);
+            if (nextValue == null) {
+                return null;
+            }
+            idSequenceMapper.updateNextValue(sequenceName, nextValue + BLOCK_SIZE);
+            return nextValue;
+        });
+        if (start == null) {
+            throw new IllegalStateException("序列号段预留失败: " + sequenceName);
+        }
+        return start;
+    }
+
+    /**
+     * 序列不存在时按seed创建，判断存在与否不加锁，seed只在序列不存在时计算
+     */
+    private void createIfAbsent(String sequenceName, LongSupplier seed) {
+        if (idSequenceMapper.selectNextValue(sequenceName) == null) {
+            idSequenceMapper.insertIfAbsent(sequenceName, seed.getAsLong());
+        }
+    }
+
+    /**
+     * 当前实例持有的号段 [next, limit)
+     */
+    private static class Block {
+        private long next;
+        private long limit;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.backend.infrastructure.sse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个用户最近推送的事件，供断线重连时补发
+ * - 状态事件每个事件名称只保留最新一条，重连时发送最新状态即可，不必重新查询；
+ * - 通知事件按顺序保留最近 {@link #NOTIFICATION_CAPACITY} 条，重连时补发断线期间错过的通知。
+ * 数据以UTF-8编码的JSON字节保存，不保留DTO对象。
+ * 同时记录各事件最后一个订阅连接断开的时间，用于判断该用户的状态是否仍在持续记录。
+ *
+ * 非线程安全，由 {@link SseManagerImpl} 持有本对象的锁访问
+ */
+class ReplayBuffer {
+
+    // 保留的通知条数
+    static final int NOTIFICATION_CAPACITY = 32;
+
+    // 订阅全部事件的多路连接对应的订阅名称
+    static final String ALL_EVENTS = "*";
+
+    // 事件名称 -> 最新状态
+    private final Map<String, Entry> states = new HashMap<>();
+
+    // 最近的通知，按事件ID递增
+    private final Deque<Entry> notifications = new ArrayDeque<>();
+
+    // 订阅名称（事件名称或ALL_EVENTS） -> 最后一个订阅连接断开的时间
+    private final Map<String, Long> releasedAt = new HashMap<>();
+
+    /**
+     * 内容是否与已记录的最新状态相同
+     */
+    boolean isLatestState(String event, String json) {
+        Entry latest = states.get(event);
+        return latest != null && Arrays.equals(latest.json, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 记录状态事件，替换该事件之前的状态
+     */
+    void recordState(long id, String event, String json) {
+        states.put(event, new Entry(id, event, true, json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 记录通知事件，超出容量时丢弃最早的通知
+     */
+    void recordNotification(long id, String event, String json) {
+        if (notifications.size() >= NOTIFICATION_CAPACITY) {
+            notifications.pollFirst();
+        }
+        notifications.addLast(new Entry(id, event, false, json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 指定事件的最新状态，没有记录时返回null
+     */
+    Entry getState(String event) {
+        return states.get(event);
+    }
+
+    /**
+     * 事件ID大于lastEventId的通知，按事件ID递增
+     */
+    List<Entry> getNotificationsAfter(long lastEventId) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : notifications) {
+            if (entry.id > lastEventId) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 订阅连接断开
+     *
+     * @param subscription 事件名称，多路连接为 {@link #ALL_EVENTS}
+     */
+    void release(String subscription, long now) {
+        releasedAt.put(subscription, now);
+    }
+
+    /**
+     * 指定事件最后一个订阅连接断开的时间，从未断开过时返回0
+     */
+    long getReleasedAt(String event) {
+        return Math.max(releasedAt.getOrDefault(event, 0L), releasedAt.getOrDefault(ALL_EVENTS, 0L));
+    }
+
+    /**
+     * 清除指定事件的状态：断线期间没有持续记录，已记录的状态可能过期
+     */
+    void clearState(String event) {
+        states.remove(event);
+    }
+
+    /**
+     * 一条已推送的事件
+     */
+    static final class Entry {
+        final long id;
+        final String event;
+        // 状态事件为true，通知事件为false
+        final boolean state;
+        private final byte[] json;
+
+        Entry(long id, String event, boolean state, byte[] json) {
+            this.id = id;
+            this.event = event;
+            this.state = state;
+            this.json = json;
+        }
+
+        String getJson() {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -2,42 +2,81 @@ package com.example.backend.infrastructure.sse;
 
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
  * SSE管理器接口
  * 遵循单一职责原则：专门处理SSE相关的操作
  * 遵循开闭原则：通过抽象接口，对扩展开放，对修改封闭
+ *
+ * 连接按用户登记，一个用户可以同时有多个连接（多个标签页、多种订阅）。
+ * 推送按事件名称（充电状态、队列状态、通知、电价等）发往用户订阅了该事件的全部连接。
+ * 推送给用户的事件带有递增的事件ID，客户端带着Last-Event-ID重连时补发断线期间错过的事件。
  */
 public interface SseManager {
     
     /**
-     * 创建SSE发射器
-     * @param key 发射器的唯一标识
+     * 创建订阅全部事件的SSE连接，每条数据带事件名称
+     * @param userId 用户ID
+     * @param lastEventId 重连时客户端收到的最后一个事件ID，首次连接为null
+     * @param initialEvents 事件名称 -> 连接建立时发送的初始数据
+     * @return SSE发射器
+     */
+    SseEmitter createStream(Long userId, Long lastEventId, Map<String, Supplier<?>> initialEvents);
+    
+    /**
+     * 创建只订阅一种事件的SSE连接，数据不带事件名称，供原有的单一用途端点使用
+     * @param userId 用户ID
+     * @param event 事件名称
+     * @param lastEventId 重连时客户端收到的最后一个事件ID，首次连接为null
      * @param statusSupplier 状态数据提供者
      * @param <T> 状态数据类型
      * @return SSE发射器
      */
-    <T> SseEmitter createEmitter(String key, Supplier<T> statusSupplier);
+    <T> SseEmitter createEmitter(Long userId, String event, Long lastEventId, Supplier<T> statusSupplier);
     
     /**
-     * 向指定的发射器发送数据
-     * @param key 发射器标识
+     * 向用户发送状态数据
+     * 只入队不等待发送；队列中同一事件未发送的旧状态会被替换
+     * @param userId 用户ID
+     * @param event 事件名称
      * @param data 要发送的数据
      * @param <T> 数据类型
      */
-    <T> void sendToEmitter(String key, T data);
+    <T> void sendToUser(Long userId, String event, T data);
     
     /**
-     * 移除发射器
-     * @param key 发射器标识
+     * 向用户发送通知消息
+     * 只入队不等待发送；每条消息都会发送，不与其他消息合并
+     * @param userId 用户ID
+     * @param event 事件名称
+     * @param data 要发送的消息
+     * @param <T> 数据类型
      */
-    void removeEmitter(String key);
+    <T> void sendNotification(Long userId, String event, T data);
     
     /**
-     * 向所有发射器广播数据
+     * 用户当前是否有订阅了指定事件的SSE连接，刚断开不久（可能正在重连）的也算作有连接
+     * 调用方据此跳过没有连接的用户，不必计算推送数据
+     * @param userId 用户ID
+     * @param event 事件名称
+     * @return 是否有连接
+     */
+    boolean isConnected(Long userId, String event);
+    
+    /**
+     * 向订阅了指定事件的所有连接广播状态数据
+     * @param event 事件名称
      * @param data 要广播的数据
      * @param <T> 数据类型
      */
-    <T> void broadcast(T data);
-} 
\ No newline at end of file
+    <T> void broadcast(String event, T data);
+    
+    /**
+     * 获取推送统计：用户数、连接数、队列深度、合并、丢弃和未变化跳过的条数、发送失败次数、发送字节数、
+     * 续传次数和补发条数、发送延迟
+     * @return 统计数据
+     */
+    Map<String, Object> getMetrics();
+}
@@ -1,83 +1,849 @@
 package com.example.backend.infrastructure.sse;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 /**
  * SSE管理器实现类
  * 遵循单一职责原则：专门处理SSE相关的操作
+ *
+ * 连接登记：用户ID -> 该用户的全部连接。
+ * - 多路连接（{@link #createStream}）订阅全部事件，每条数据带事件名称，一个连接即可接收充电状态、队列状态、通知和电价；
+ * - 单一事件连接（{@link #createEmitter}）只接收一种事件，数据不带事件名称，与原有端点的格式一致；
+ * - 同一用户的多个连接互不替换，超过 {@link #MAX_CONNECTIONS_PER_USER} 个时关闭最早的连接。
+ *
+ * 断线续传：推送给用户的事件按推送顺序分配递增的事件ID，并记入该用户的 {@link ReplayBuffer}。
+ * 客户端带着Last-Event-ID重连时，只补发断线期间错过的通知，各状态直接发送缓冲区中的最新状态，不再查询；
+ * 用户断线后状态继续记录 {@link #RESUME_WINDOW_MILLIS} 毫秒，超过后重连时重新查询。
+ * 事件ID从服务启动时刻的毫秒数×1000开始，重启后的事件ID大于重启前的，旧的Last-Event-ID按首次连接处理。
+ * 电价等广播同样分配事件ID，记入订阅了该事件或缓冲区中有该事件状态的用户的缓冲区。
+ *
+ * 发送与调用方解耦：每个连接有一个有界发送队列，调用方只负责入队，立即返回，
+ * 由写线程池逐个连接取出发送，一个慢连接或半断开的连接只占用一个写线程，不影响定时任务和其他连接。
+ * - 写线程池按需扩展到 {@link #MAX_WRITER_THREADS} 个线程，空闲后回收，少数阻塞的发送不会占满线程池；
+ * - 单次发送超过 {@link #SEND_TIMEOUT_MILLIS} 毫秒仍未返回时放弃该连接：清空队列并移除登记，不再为它安排发送，
+ *   阻塞的写线程等容器的写超时返回后结束发射器；
+ * - {@link #getMetrics} 报告写线程数、忙碌线程数、等待线程的发送任务数和正在阻塞的发送，用于发现写线程饱和。
+ * - 状态数据（{@link #sendToUser}、{@link #broadcast}）：队列中已有同一事件且未发送的数据时移除旧数据，只推送最新状态；
+ * - 通知消息（{@link #sendNotification}）：逐条入队，不合并；
+ * - 队列已满时丢弃最旧的一条。
+ * 同一连接同一时刻只有一个写线程在发送，保证通知的发送顺序且不会并发写同一个发射器。
+ * 帧上的事件ID只增不减，晚于后续事件发出的状态不带事件ID，保证客户端的Last-Event-ID之前的通知都已收到。
+ *
+ * 减少无效推送：
+ * - 状态与缓冲区中的最新状态相同时不分配事件ID、不入队；每个连接也记录各事件最近一次发送的JSON，内容没有变化时不再发送；
+ * - 同一连接同一事件两次状态推送至少间隔 {@link #COALESCE_WINDOW_MILLIS} 毫秒，间隔内的多次推送合并为最后一次，
+ *   等待间隔的状态不阻塞排在后面的其他事件；
+ * - 连接超过 {@link #KEEP_ALIVE_INTERVAL_MILLIS} 毫秒没有发送任何数据时发送一条注释帧，保持连接并及时发现已断开的连接。
  */
 @Component
 public class SseManagerImpl implements SseManager {
-    
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
-    
+
+    // 每个用户最多同时保持的连接数
+    private static final int MAX_CONNECTIONS_PER_USER = 8;
+
+    // 最多保留补发缓冲区的用户数，超出时淘汰最久未使用且没有连接的用户
+    private static final int MAX_REPLAY_BUFFERS = 4096;
+
+    // 断线后继续记录状态的时间（毫秒），在此期间重连可直接使用缓冲区中的状态
+    private static final long RESUME_WINDOW_MILLIS = 60000;
+
+    // 每个连接的发送队列长度
+    private static final int QUEUE_CAPACITY = 16;
+
+    // 写线程每次为一个连接最多连续发送的条数，超过后让出给其他连接
+    private static final int DRAIN_BATCH = 8;
+
+    // 同一连接同一事件两次状态推送的最小间隔（毫秒）
+    private static final long COALESCE_WINDOW_MILLIS = 500;
+
+    // 保活注释帧的发送间隔（毫秒）
+    private static final long KEEP_ALIVE_INTERVAL_MILLIS = 20000;
+
+    // 写线程数上限
+    private static final int MAX_WRITER_THREADS = 64;
+
+    // 空闲写线程的回收时间（秒）
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 60;
+
+    // 单次发送超过该时间（毫秒）计入正在阻塞的发送
+    private static final long SLOW_WRITE_MILLIS = 1000;
+
+    // 单次发送的最长时间（毫秒），超过后放弃该连接
+    private static final long SEND_TIMEOUT_MILLIS = 10000;
+
+    // 保活帧在队列中的事件名称
+    private static final String KEEP_ALIVE = "keep-alive";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 用户ID -> 该用户的全部连接
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    // 用户ID -> 补发缓冲区，按访问顺序排列，只在持有本映射的锁时访问
+    private final Map<Long, ReplayBuffer> replayBuffers = new LinkedHashMap<Long, ReplayBuffer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ReplayBuffer> eldest) {
+            return size() > MAX_REPLAY_BUFFERS && !connections.containsKey(eldest.getKey());
+        }
+    };
+
+    // 事件ID
+    private final AtomicLong eventSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    // 本次启动后的事件ID都大于该值
+    private final long firstEventId = eventSequence.get();
+
+    // 连接编号，用于找出最早的连接
+    private final AtomicLong connectionSequence = new AtomicLong();
+
+    // 写线程池：核心线程数等于上限且允许超时回收，有任务时直接新建线程，空闲后缩回
+    private final ThreadPoolExecutor writers = newWriterPool();
+
+    // 只负责到期后把延迟的发送交给写线程池，自身不发送
+    private final ScheduledExecutorService drainTimer = Executors.newSingleThreadScheduledExecutor(
+            new WriterThreadFactory("sse-drain-timer-"));
+
+    // 推送统计
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong keepAlives = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong resumes = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicInteger queuedItems = new AtomicInteger();
+
     @Override
-    public <T> SseEmitter createEmitter(String key, Supplier<T> statusSupplier) {
+    public SseEmitter createStream(Long userId, Long lastEventId, Map<String, Supplier<?>> initialEvents) {
+        return register(userId, null, lastEventId, initialEvents);
+    }
+
+    @Override
+    public <T> SseEmitter createEmitter(Long userId, String event, Long lastEventId, Supplier<T> statusSupplier) {
+        return register(userId, event, lastEventId, Collections.singletonMap(event, statusSupplier));
+    }
+
+    @Override
+    public <T> void sendToUser(Long userId, String event, T data) {
+        if (isConnected(userId, event)) {
+            publish(userId, event, data, true);
+        }
+    }
+
+    @Override
+    public <T> void sendNotification(Long userId, String event, T data) {
+        if (userId != null) {
+            publish(userId, event, data, false);
+        }
+    }
+
+    @Override
+    public boolean isConnected(Long userId, String event) {
+        if (userId == null) {
+            return false;
+        }
+        if (hasConnection(userId, event)) {
+            return true;
+        }
+        ReplayBuffer buffer;
+        synchronized (replayBuffers) {
+            buffer = replayBuffers.get(userId);
+        }
+        if (buffer == null) {
+            return false;
+        }
+        synchronized (buffer) {
+            return isRecent(buffer.getReleasedAt(event), System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public <T> void broadcast(String event, T data) {
+        String json = toJson(data);
+        if (json == null) {
+            return;
+        }
+        List<Map.Entry<Long, ReplayBuffer>> buffers;
+        synchronized (replayBuffers) {
+            buffers = new ArrayList<>(replayBuffers.entrySet());
+        }
+        long id = eventSequence.incrementAndGet();
+        // 已连接的用户都有缓冲区；缓冲区中有该事件状态的断线用户也要更新，重连时不会补发旧数据
+        for (Map.Entry<Long, ReplayBuffer> entry : buffers) {
+            Long userId = entry.getKey();
+            ReplayBuffer buffer = entry.getValue();
+            synchronized (buffer) {
+                if (buffer.getState(event) == null && !hasConnection(userId, event)) {
+                    continue;
+                }
+                if (buffer.isLatestState(event, json)) {
+                    unchanged.incrementAndGet();
+                    continue;
+                }
+                buffer.recordState(id, event, json);
+                Set<Connection> userConnections = connections.get(userId);
+                if (userConnections != null) {
+                    for (Connection connection : userConnections) {
+                        if (connection.accepts(event)) {
+                            enqueue(connection, new Message(id, event, json, true));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        int connectionCount = 0;
+        int maxDepth = 0;
+        int blockedWrites = 0;
+        long longestWrite = 0;
+        long now = System.currentTimeMillis();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connectionCount++;
+                synchronized (connection) {
+                    maxDepth = Math.max(maxDepth, connection.queue.size());
+                }
+                long writeStartedAt = connection.writeStartedAt;
+                if (writeStartedAt > 0) {
+                    longestWrite = Math.max(longestWrite, now - writeStartedAt);
+                    if (now - writeStartedAt >= SLOW_WRITE_MILLIS) {
+                        blockedWrites++;
+                    }
+                }
+            }
+        }
+        int bufferCount;
+        synchronized (replayBuffers) {
+            bufferCount = replayBuffers.size();
+        }
+        long sentCount = sent.get();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("users", connections.size());
+        metrics.put("connections", connectionCount);
+        metrics.put("replayBuffers", bufferCount);
+        metrics.put("queuedItems", queuedItems.get());
+        metrics.put("maxQueueDepth", maxDepth);
+        metrics.put("enqueued", enqueued.get());
+        metrics.put("sent", sentCount);
+        metrics.put("coalesced", coalesced.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("failed", failed.get());
+        metrics.put("abandoned", abandoned.get());
+        metrics.put("unchanged", unchanged.get());
+        metrics.put("keepAlives", keepAlives.get());
+        metrics.put("bytesSent", bytesSent.get());
+        metrics.put("resumes", resumes.get());
+        metrics.put("replayed", replayed.get());
+        metrics.put("averageLatencyMs", sentCount > 0 ? totalLatencyNanos.get() / sentCount / 1_000_000.0 : 0.0);
+        metrics.put("maxLatencyMs", maxLatencyNanos.get() / 1_000_000.0);
+        // 写线程饱和：忙碌线程接近上限、发送任务排队或发送长时间阻塞
+        metrics.put("writerThreads", writers.getPoolSize());
+        metrics.put("busyWriters", writers.getActiveCount());
+        metrics.put("maxWriterThreads", MAX_WRITER_THREADS);
+        metrics.put("pendingDrains", writers.getQueue().size());
+        metrics.put("blockedWrites", blockedWrites);
+        metrics.put("longestWriteMs", longestWrite);
+        return metrics;
+    }
+
+    /**
+     * 向空闲的连接发送保活注释帧
+     */
+    @Scheduled(fixedRate = KEEP_ALIVE_INTERVAL_MILLIS)
+    public void sendKeepAlive() {
+        long now = System.currentTimeMillis();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                if (now - connection.lastWriteAt >= KEEP_ALIVE_INTERVAL_MILLIS) {
+                    enqueue(connection, new Message(0, KEEP_ALIVE, null, true));
+                }
+            }
+        }
+    }
+
+    /**
+     * 放弃单次发送超过 {@link #SEND_TIMEOUT_MILLIS} 毫秒仍未返回的连接
+     * 只清空队列并移除登记，不调用发射器（发射器的锁被阻塞的发送持有），之后的推送不再进入该连接
+     */
+    @Scheduled(fixedRate = SEND_TIMEOUT_MILLIS / 2)
+    public void abandonStalledWrites() {
+        long now = System.currentTimeMillis();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                long writeStartedAt = connection.writeStartedAt;
+                if (writeStartedAt > 0 && now - writeStartedAt >= SEND_TIMEOUT_MILLIS) {
+                    abandoned.incrementAndGet();
+                    close(connection);
+                    unregister(connection);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainTimer.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    /**
+     * 创建并登记连接，发送初始数据
+     * 带有本次启动后的Last-Event-ID时按断线续传处理：补发错过的通知，仍在持续记录的状态直接从缓冲区发送；
+     * 其余状态调用初始数据提供者重新获取
+     *
+     * @param event 单一事件连接订阅的事件名称，多路连接为null
+     * @param lastEventId 客户端收到的最后一个事件ID，首次连接为null
+     * @param initialEvents 事件名称 -> 初始数据提供者
+     */
+    private SseEmitter register(Long userId, String event, Long lastEventId, Map<String, Supplier<?>> initialEvents) {
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        
-        // 设置回调
+        boolean resume = lastEventId != null && lastEventId > firstEventId && lastEventId <= eventSequence.get();
+        Connection connection = new Connection(connectionSequence.incrementAndGet(), userId, event, emitter,
+                resume ? lastEventId : 0);
+
+        // 设置回调，只移除本连接，不影响同一用户的其他连接
         emitter.onTimeout(() -> {
             emitter.complete();
-            removeEmitter(key);
+            unregister(connection);
         });
-        
+
         emitter.onCompletion(() -> {
-            removeEmitter(key);
+            unregister(connection);
         });
-        
+
         emitter.onError(e -> {
-            removeEmitter(key);
+            unregister(connection);
         });
-        
-        // 保存发射器
-        emitters.put(key, emitter);
-        
-        // 立即发送一次状态
-        try {
-            T statusDTO = statusSupplier.get();
-            emitter.send(statusDTO);
-        } catch (IOException e) {
-            emitter.completeWithError(e);
-            removeEmitter(key);
+
+        // 在缓冲区锁内确定补发内容并登记连接，与同时进行的推送保持顺序，不重复、不遗漏
+        List<String> queryEvents = new ArrayList<>();
+        ReplayBuffer buffer = replayBuffer(userId);
+        long registeredAt;
+        synchronized (buffer) {
+            long now = System.currentTimeMillis();
+            List<ReplayBuffer.Entry> replay = new ArrayList<>();
+            for (String initialEvent : initialEvents.keySet()) {
+                // 状态一直在记录（有其他连接或刚断开不久）时缓冲区中的状态是最新的，否则可能已过期
+                boolean recorded = hasConnection(userId, initialEvent)
+                        || isRecent(buffer.getReleasedAt(initialEvent), now);
+                if (!recorded) {
+                    buffer.clearState(initialEvent);
+                }
+                ReplayBuffer.Entry state = buffer.getState(initialEvent);
+                if (resume && state != null) {
+                    replay.add(state);
+                } else {
+                    queryEvents.add(initialEvent);
+                }
+            }
+            if (resume) {
+                for (ReplayBuffer.Entry notification : buffer.getNotificationsAfter(lastEventId)) {
+                    if (connection.accepts(notification.event)) {
+                        replay.add(notification);
+                    }
+                }
+                replay.sort(Comparator.comparingLong(entry -> entry.id));
+                resumes.incrementAndGet();
+                replayed.addAndGet(replay.size());
+            }
+
+            Set<Connection> userConnections = connections.compute(userId, (id, existing) -> {
+                Set<Connection> result = existing != null ? existing : ConcurrentHashMap.newKeySet();
+                result.add(connection);
+                return result;
+            });
+            if (userConnections.size() > MAX_CONNECTIONS_PER_USER) {
+                closeEldest(userConnections);
+            }
+
+            for (ReplayBuffer.Entry entry : replay) {
+                enqueue(connection, new Message(entry.id, entry.event, entry.getJson(), entry.state));
+            }
+            // 此后的推送都会发往本连接
+            registeredAt = eventSequence.get();
+        }
+
+        // 需要重新获取的状态在锁外查询，查询结果按推送处理
+        for (String queryEvent : queryEvents) {
+            String json = toJson(initialEvents.get(queryEvent).get());
+            if (json != null) {
+                publishInitial(connection, buffer, queryEvent, json, registeredAt);
+            }
         }
-        
+
         return emitter;
     }
-    
-    @Override
-    public <T> void sendToEmitter(String key, T data) {
-        SseEmitter emitter = emitters.get(key);
-        if (emitter != null) {
-            try {
-                emitter.send(data);
-            } catch (IOException e) {
-                emitter.completeWithError(e);
-                removeEmitter(key);
+
+    /**
+     * 发送连接建立时查询到的状态
+     * 查询期间已有新的推送时，新状态已发往本连接，查询结果可能更旧，直接丢弃；
+     * 否则像推送一样分配事件ID、记入缓冲区并发往用户的全部相关连接，避免缓冲区与连接收到的状态不一致
+     *
+     * @param registeredAt 登记连接时的事件ID，之后分配的事件都已发往本连接
+     */
+    private void publishInitial(Connection connection, ReplayBuffer buffer, String event, String json,
+            long registeredAt) {
+        synchronized (buffer) {
+            ReplayBuffer.Entry latest = buffer.getState(event);
+            if (latest != null && latest.id > registeredAt) {
+                return;
+            }
+            if (latest != null && buffer.isLatestState(event, json)) {
+                // 与已记录的状态相同，其他连接已收到，只发给本连接
+                enqueue(connection, new Message(latest.id, event, json, true));
+                return;
+            }
+            long id = eventSequence.incrementAndGet();
+            buffer.recordState(id, event, json);
+            Set<Connection> userConnections = connections.get(connection.userId);
+            if (userConnections != null) {
+                for (Connection candidate : userConnections) {
+                    if (candidate.accepts(event)) {
+                        enqueue(candidate, new Message(id, event, json, true));
+                    }
+                }
             }
         }
     }
-    
-    @Override
-    public void removeEmitter(String key) {
-        emitters.remove(key);
+
+    private void closeEldest(Set<Connection> userConnections) {
+        Connection eldest = null;
+        for (Connection candidate : userConnections) {
+            if (eldest == null || candidate.id < eldest.id) {
+                eldest = candidate;
+            }
+        }
+        close(eldest);
+        unregister(eldest);
+        try {
+            eldest.emitter.complete();
+        } catch (Exception e) {
+            // 发射器已结束
+        }
     }
-    
-    @Override
-    public <T> void broadcast(T data) {
-        emitters.entrySet().removeIf(entry -> {
+
+    private void unregister(Connection connection) {
+        boolean[] removed = new boolean[1];
+        connections.computeIfPresent(connection.userId, (id, existing) -> {
+            removed[0] = existing.remove(connection);
+            return existing.isEmpty() ? null : existing;
+        });
+        if (removed[0]) {
+            ReplayBuffer buffer = replayBuffer(connection.userId);
+            synchronized (buffer) {
+                buffer.release(connection.event != null ? connection.event : ReplayBuffer.ALL_EVENTS,
+                        System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * 为事件分配事件ID，记入用户的补发缓冲区，放入用户订阅了该事件的连接的发送队列
+     * 状态与缓冲区中的最新状态相同时不做任何处理
+     */
+    private void publish(Long userId, String event, Object data, boolean state) {
+        String json = toJson(data);
+        if (json == null) {
+            return;
+        }
+        ReplayBuffer buffer = replayBuffer(userId);
+        synchronized (buffer) {
+            if (state && buffer.isLatestState(event, json)) {
+                unchanged.incrementAndGet();
+                return;
+            }
+            long id = eventSequence.incrementAndGet();
+            if (state) {
+                buffer.recordState(id, event, json);
+            } else {
+                buffer.recordNotification(id, event, json);
+            }
+            Set<Connection> userConnections = connections.get(userId);
+            if (userConnections != null) {
+                for (Connection connection : userConnections) {
+                    if (connection.accepts(event)) {
+                        enqueue(connection, new Message(id, event, json, state));
+                    }
+                }
+            }
+        }
+    }
+
+    private ReplayBuffer replayBuffer(Long userId) {
+        synchronized (replayBuffers) {
+            return replayBuffers.computeIfAbsent(userId, id -> new ReplayBuffer());
+        }
+    }
+
+    private boolean hasConnection(Long userId, String event) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections != null) {
+            for (Connection connection : userConnections) {
+                if (connection.accepts(event)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRecent(long releasedAt, long now) {
+        return releasedAt > 0 && now - releasedAt <= RESUME_WINDOW_MILLIS;
+    }
+
+    private String toJson(Object data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            // 数据无法序列化，丢弃这一条
+            failed.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 数据入队，必要时调度写线程，不等待发送
+     */
+    private void enqueue(Connection connection, Message message) {
+        enqueued.incrementAndGet();
+        long generation;
+        long delay;
+        synchronized (connection) {
+            if (connection.closed) {
+                return;
+            }
+            Message queued = message.coalesce ? findQueued(connection, message.event) : null;
+            if (queued != null && queued.id > message.id) {
+                // 队列中已有事件ID更大的状态，这一条更旧，丢弃
+                coalesced.incrementAndGet();
+                return;
+            }
+            if (queued != null) {
+                connection.queue.remove(queued);
+                queuedItems.decrementAndGet();
+                coalesced.incrementAndGet();
+            } else if (connection.queue.size() >= QUEUE_CAPACITY) {
+                connection.queue.pollFirst();
+                queuedItems.decrementAndGet();
+                dropped.incrementAndGet();
+            }
+            connection.queue.addLast(message);
+            queuedItems.incrementAndGet();
+
+            // 已有写线程在发送，或已安排的发送不晚于这条数据可以发送的时间，不需要重新安排
+            long now = System.currentTimeMillis();
+            long runAt = now + Math.max(waitMillis(connection, message, now), 0);
+            if (connection.draining && runAt >= connection.nextDrainAt) {
+                return;
+            }
+            connection.draining = true;
+            connection.nextDrainAt = runAt;
+            generation = ++connection.drainGeneration;
+            delay = runAt - now;
+        }
+        submitDrain(connection, generation, delay);
+    }
+
+    /**
+     * 队列中同一事件未发送的状态，没有时返回null
+     * 新状态替换它时排到队尾，保持队列按事件ID递增
+     */
+    private static Message findQueued(Connection connection, String event) {
+        for (Message queued : connection.queue) {
+            if (queued.coalesce && queued.event.equals(event)) {
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 消息还需等待多久才能发送：状态数据距同一事件上次推送不足合并间隔时需要等待，其他数据立即发送
+     */
+    private static long waitMillis(Connection connection, Message message, long now) {
+        if (!message.coalesce || KEEP_ALIVE.equals(message.event)) {
+            return 0;
+        }
+        Long nextSendAt = connection.nextSendAt.get(message.event);
+        return nextSendAt != null ? nextSendAt - now : 0;
+    }
+
+    private void submitDrain(Connection connection, long generation, long delay) {
+        try {
+            if (delay <= 0) {
+                writers.execute(() -> drain(connection, generation));
+            } else {
+                drainTimer.schedule(() -> submitDrain(connection, generation, 0), delay, TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException e) {
+            // 写线程池已关闭（应用停止中），丢弃未发送的数据
+            close(connection);
+        }
+    }
+
+    private static ThreadPoolExecutor newWriterPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_WRITER_THREADS, MAX_WRITER_THREADS,
+                WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new WriterThreadFactory("sse-writer-"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 写线程：按排队顺序发送可以发送的数据，每次最多发送 {@link #DRAIN_BATCH} 条
+     * 还在合并间隔内的状态留在队列中，期间到达的同一事件状态直接替换，间隔结束后再发送
+     *
+     * @param generation 安排本次发送时的编号，之后又重新安排过（如有新数据需要提前发送）时本次不再执行
+     */
+    private void drain(Connection connection, long generation) {
+        synchronized (connection) {
+            if (connection.closed || generation != connection.drainGeneration) {
+                return;
+            }
+            connection.nextDrainAt = 0;
+        }
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            Message message = null;
+            synchronized (connection) {
+                long now = System.currentTimeMillis();
+                long minWait = Long.MAX_VALUE;
+                Iterator<Message> iterator = connection.queue.iterator();
+                while (iterator.hasNext()) {
+                    Message candidate = iterator.next();
+                    long wait = waitMillis(connection, candidate, now);
+                    if (wait <= 0) {
+                        iterator.remove();
+                        message = candidate;
+                        break;
+                    }
+                    minWait = Math.min(minWait, wait);
+                }
+                if (message == null) {
+                    if (connection.queue.isEmpty()) {
+                        connection.draining = false;
+                        return;
+                    }
+                    // 只剩合并间隔内的状态，到最早可以发送的时间再继续
+                    connection.nextDrainAt = now + minWait;
+                    submitDrain(connection, connection.drainGeneration, minWait);
+                    return;
+                }
+                queuedItems.decrementAndGet();
+            }
+            connection.writeStartedAt = System.currentTimeMillis();
             try {
-                entry.getValue().send(data);
-                return false; // 发送成功，保留连接
-            } catch (IOException e) {
-                entry.getValue().completeWithError(e);
-                return true; // 发送失败，移除连接
+                write(connection, message);
+            } catch (IOException | IllegalStateException e) {
+                // 连接已断开或已结束，移除连接
+                failed.incrementAndGet();
+                try {
+                    connection.emitter.completeWithError(e);
+                } catch (Exception ignored) {
+                    // 发射器已结束
+                }
+                close(connection);
+                unregister(connection);
+                return;
+            } finally {
+                connection.writeStartedAt = 0;
             }
-        });
+            boolean closed;
+            synchronized (connection) {
+                closed = connection.closed;
+            }
+            if (closed) {
+                // 发送阻塞期间连接已被放弃，发送返回后结束发射器
+                try {
+                    connection.emitter.complete();
+                } catch (Exception e) {
+                    // 发射器已结束
+                }
+                return;
+            }
+        }
+        // 队列中还有数据，重新排队，让出写线程给其他连接
+        long nextGeneration;
+        synchronized (connection) {
+            if (connection.closed) {
+                return;
+            }
+            connection.nextDrainAt = System.currentTimeMillis();
+            nextGeneration = connection.drainGeneration;
+        }
+        submitDrain(connection, nextGeneration, 0);
+    }
+
+    /**
+     * 发送一条数据；状态数据与该连接上次发送的同一事件状态相同时跳过
+     */
+    private void write(Connection connection, Message message) throws IOException {
+        if (KEEP_ALIVE.equals(message.event)) {
+            connection.emitter.send(SseEmitter.event().comment(KEEP_ALIVE));
+            connection.lastWriteAt = System.currentTimeMillis();
+            keepAlives.incrementAndGet();
+            return;
+        }
+
+        if (message.coalesce && message.json.equals(connection.lastSentJson.get(message.event))) {
+            unchanged.incrementAndGet();
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event();
+        if (message.id > connection.lastEventId) {
+            builder.id(String.valueOf(message.id));
+            connection.lastEventId = message.id;
+        }
+        if (connection.event == null) {
+            builder.name(message.event);
+        }
+        connection.emitter.send(builder.data(message.json, MediaType.APPLICATION_JSON));
+        long now = System.currentTimeMillis();
+        connection.lastWriteAt = now;
+        if (message.coalesce) {
+            connection.lastSentJson.put(message.event, message.json);
+            connection.nextSendAt.put(message.event, now + COALESCE_WINDOW_MILLIS);
+        }
+        bytesSent.addAndGet(message.json.length());
+        recordSent(message);
+    }
+
+    private void recordSent(Message message) {
+        long latency = System.nanoTime() - message.enqueuedAt;
+        sent.incrementAndGet();
+        totalLatencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    private void close(Connection connection) {
+        synchronized (connection) {
+            connection.closed = true;
+            connection.draining = false;
+            queuedItems.addAndGet(-connection.queue.size());
+            connection.queue.clear();
+        }
+    }
+
+    /**
+     * 单个SSE连接及其发送队列，队列和状态只在持有连接锁时访问
+     */
+    private static class Connection {
+        private final long id;
+        private final Long userId;
+        // 单一事件连接订阅的事件名称，多路连接为null
+        private final String event;
+        private final SseEmitter emitter;
+        private final Deque<Message> queue = new ArrayDeque<>();
+        // 是否已有写线程负责发送本连接的队列（正在发送或已安排发送）
+        private boolean draining;
+        // 已安排的发送时间，正在发送时为0
+        private long nextDrainAt;
+        // 每次安排发送时递增，过期的安排不再执行
+        private long drainGeneration;
+        private boolean closed;
+        // 以下字段只由当前负责本连接的写线程修改
+        // 已发出的最大事件ID，续传的连接从客户端的Last-Event-ID开始
+        private long lastEventId;
+        // 各事件最近一次发送的JSON
+        private final Map<String, String> lastSentJson = new HashMap<>();
+        // 各事件下一次状态推送的最早时间
+        private final Map<String, Long> nextSendAt = new ConcurrentHashMap<>();
+        // 最近一次发送任何数据的时间
+        private volatile long lastWriteAt = System.currentTimeMillis();
+        // 正在进行的发送的开始时间，没有发送时为0
+        private volatile long writeStartedAt;
+
+        Connection(long id, Long userId, String event, SseEmitter emitter, long lastEventId) {
+            this.id = id;
+            this.userId = userId;
+            this.event = event;
+            this.emitter = emitter;
+            this.lastEventId = lastEventId;
+        }
+
+        boolean accepts(String event) {
+            return this.event == null || this.event.equals(event);
+        }
+    }
+
+    /**
+     * 待发送的数据
+     */
+    private static class Message {
+        // 事件ID，保活帧为0
+        private final long id;
+        private final String event;
+        private final String json;
+        private final boolean coalesce;
+        private final long enqueuedAt = System.nanoTime();
+
+        Message(long id, String event, String json, boolean coalesce) {
+            this.id = id;
+            this.event = event;
+            this.json = json;
+            this.coalesce = coalesce;
+        }
+    }
+
+    /**
+     * 写线程设为守护线程并命名，便于排查
+     */
+    private static class WriterThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger index = new AtomicInteger();
+
+        WriterThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -5,12 +5,16 @@ import com.example.backend.model.entity.ChargingRequest;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface ChargingRequestMapper extends BaseMapper<ChargingRequest> {
     
     /**
      * 查询指定充电模式和前缀下的最大序列号
+     * 需要扫描全表，只在创建请求ID序列时作为初始值调用一次
      * @param chargingMode 充电模式
      * @param prefix 请求ID前缀
      * @return 最大序列号，如果没有找到返回null
@@ -22,4 +26,28 @@ public interface ChargingRequestMapper extends BaseMapper<ChargingRequest> {
     Integer selectMaxSequenceByModeAndPrefix(@Param("chargingMode") String chargingMode, 
                                            @Param("prefix") String prefix,
                                            @Param("prefixLength") int prefixLength);
-} 
\ No newline at end of file
+    
+    /**
+     * 批量写入调度分配结果（单条多行 UPDATE ... CASE 语句）
+     * 为每个请求设置充电桩和队列位置，并将优先等待状态统一改回普通等待状态。
+     * 只更新仍在等候区（未分配充电桩且处于等待状态）的请求，
+     * 调度期间被取消或已被分配的请求不会被覆盖。
+     * @param assignments 已设置 chargingPileId 和 queuePosition 的请求列表，不能为空
+     * @return 实际更新的行数，小于列表大小说明存在并发修改
+     */
+    @Update("<script>" +
+            "UPDATE charging_request SET " +
+            "charging_pile_id = CASE id " +
+            "<foreach collection='assignments' item='a'>WHEN #{a.id} THEN #{a.chargingPileId} </foreach>" +
+            "END, " +
+            "queue_position = CASE id " +
+            "<foreach collection='assignments' item='a'>WHEN #{a.id} THEN #{a.queuePosition} </foreach>" +
+            "END, " +
+            "status = 'WAITING' " +
+            "WHERE id IN " +
+            "<foreach collection='assignments' item='a' open='(' separator=',' close=')'>#{a.id}</foreach> " +
+            "AND charging_pile_id IS NULL " +
+            "AND status IN ('WAITING', 'PRIORITY_WAITING')" +
+            "</script>")
+    int batchAssignToPiles(@Param("assignments") List<ChargingRequest> assignments);
+}
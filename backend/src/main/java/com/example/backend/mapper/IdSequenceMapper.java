@@ -0,0 +1,61 @@
+package com.example.backend.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 序列表数据访问接口
+ * 每个序列一行，next_value 为下一个尚未分配的值
+ */
+@Mapper
+public interface IdSequenceMapper {
+
+    /**
+     * 查询序列的下一个值，不加锁，只用于判断序列是否存在
+     * @param sequenceName 序列名称
+     * @return 下一个尚未分配的值，序列不存在时返回null
+     */
+    @Select("SELECT next_value FROM id_sequence WHERE sequence_name = #{sequenceName}")
+    Long selectNextValue(@Param("sequenceName") String sequenceName);
+
+    /**
+     * 查询并锁定序列的下一个值，需要在事务中调用
+     * 只对已存在的序列调用：锁定不存在的行会加间隙锁，与并发的插入互相等待而死锁
+     * @param sequenceName 序列名称
+     * @return 下一个尚未分配的值，序列不存在时返回null
+     */
+    @Select("SELECT next_value FROM id_sequence WHERE sequence_name = #{sequenceName} FOR UPDATE")
+    Long selectNextValueForUpdate(@Param("sequenceName") String sequenceName);
+
+    /**
+     * 创建序列，已存在时忽略（多个实例同时创建时只有一个生效）
+     * @param sequenceName 序列名称
+     * @param nextValue 初始值
+     * @return 实际插入的行数
+     */
+    @Insert("INSERT IGNORE INTO id_sequence (sequence_name, next_value) VALUES (#{sequenceName}, #{nextValue})")
+    int insertIfAbsent(@Param("sequenceName") String sequenceName, @Param("nextValue") long nextValue);
+
+    /**
+     * 更新序列的下一个值
+     * @param sequenceName 序列名称
+     * @param nextValue 新的下一个值
+     * @return 更新的行数
+     */
+    @Update("UPDATE id_sequence SET next_value = #{nextValue} WHERE sequence_name = #{sequenceName}")
+    int updateNextValue(@Param("sequenceName") String sequenceName, @Param("nextValue") long nextValue);
+
+    /**
+     * 删除名称以指定前缀开头、且排在保留界限之前的序列
+     * 界限本身带有同样的前缀，按名称范围删除即只删除该前缀下的序列
+     * @param namePrefix 序列名称前缀
+     * @param oldestRetained 保留的最早的序列名称，排在它之前的被删除
+     * @return 删除的行数
+     */
+    @Delete("DELETE FROM id_sequence WHERE sequence_name >= #{namePrefix} AND sequence_name < #{oldestRetained}")
+    int deleteBefore(@Param("namePrefix") String namePrefix, @Param("oldestRetained") String oldestRetained);
+}
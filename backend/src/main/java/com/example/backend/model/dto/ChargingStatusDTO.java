@@ -1,6 +1,7 @@
 package com.example.backend.model.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 public class ChargingStatusDTO {
     private String status;  // 充电状态
@@ -17,6 +18,10 @@ public class ChargingStatusDTO {
     // 计费相关字段
     private BigDecimal currentTotalFee;     // 当前已产生的总费用（元）
     private BigDecimal estimatedTotalFee;   // 预计总费用（元）
+    
+    // 排队中请求的推演结果，其他状态为null
+    private LocalDateTime estimatedStartTime;  // 预计开始充电时间
+    private LocalDateTime estimatedEndTime;    // 预计充电结束时间
 
     public ChargingStatusDTO() {}
 
@@ -196,4 +201,20 @@ public class ChargingStatusDTO {
     public void setEstimatedTotalFee(BigDecimal estimatedTotalFee) {
         this.estimatedTotalFee = estimatedTotalFee;
     }
-} 
\ No newline at end of file
+
+    public LocalDateTime getEstimatedStartTime() {
+        return estimatedStartTime;
+    }
+
+    public void setEstimatedStartTime(LocalDateTime estimatedStartTime) {
+        this.estimatedStartTime = estimatedStartTime;
+    }
+
+    public LocalDateTime getEstimatedEndTime() {
+        return estimatedEndTime;
+    }
+
+    public void setEstimatedEndTime(LocalDateTime estimatedEndTime) {
+        this.estimatedEndTime = estimatedEndTime;
+    }
+} 
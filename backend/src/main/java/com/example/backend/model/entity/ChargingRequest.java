@@ -30,6 +30,11 @@ public class ChargingRequest {
         this.chargingMode = chargingMode;
         this.chargingAmount = chargingAmount;
         this.status = status;
+        this.createTime = createTime;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.chargingPileId = chargingPileId;
+        this.queuePosition = queuePosition;
     }
 
     public Long getId() {
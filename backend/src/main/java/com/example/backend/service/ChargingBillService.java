@@ -39,6 +39,12 @@ public interface ChargingBillService extends IService<ChargingBill> {
      */
     String generateBillNumber();
     
+    /**
+     * 准备当天的详单编号序列
+     * 按已有详单恢复当天序列并预留号段，启动时和每天零点执行
+     */
+    void initializeBillNumberSequence();
+    
     /**
      * 使用分时电价计算充电费用
      * 支持跨时段充电的费用计算
@@ -3,7 +3,9 @@ package com.example.backend.service;
 import com.example.backend.model.dto.ChargingRequestDTO;
 import com.example.backend.model.dto.ChargingResponseDTO;
 import com.example.backend.model.dto.ChargingStatusDTO;
+import com.example.backend.model.entity.ChargingPile;
 import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.model.entity.User;
 
 import java.util.List;
 import java.util.Map;
@@ -61,6 +63,16 @@ public interface ChargingRequestService {
      */
     ChargingStatusDTO getChargingStatus(String requestId);
     
+    /**
+     * 根据已查出的请求、用户和充电桩计算充电状态，不再查询数据库
+     * 供批量推送在一次性读取所有数据后逐个计算使用
+     * @param request 充电请求
+     * @param user 请求所属用户，可以为null
+     * @param pile 请求所在充电桩，未分配时为null
+     * @return 充电状态
+     */
+    ChargingStatusDTO buildChargingStatus(ChargingRequest request, User user, ChargingPile pile);
+    
     /**
      * 获取用户活跃充电请求的状态
      * @param userId 用户ID
@@ -82,6 +94,19 @@ public interface ChargingRequestService {
      */
     ChargingRequest getActiveRequest(Long userId);
     
+    /**
+     * 获取活跃请求缓存的统计
+     * @return 命中数、未命中数、缓存用户数、一致性校验模式是否开启和发现的不一致次数
+     */
+    Map<String, Object> getActiveRequestCacheMetrics();
+    
+    /**
+     * 开启或关闭活跃请求缓存的一致性校验模式
+     * 开启后每次命中都与数据库比对，用于验证缓存失效是否完整
+     * @param enabled 是否开启
+     */
+    void setActiveRequestCacheConsistencyCheck(boolean enabled);
+    
     /**
      * 获取请求前面的排队数量
      * @param requestId 请求ID
@@ -103,6 +128,12 @@ public interface ChargingRequestService {
      */
     String generateRequestId(String chargingMode);
     
+    /**
+     * 初始化快充和慢充的请求ID序列
+     * 序列不存在时按已有请求ID的最大序号创建，启动时调用一次
+     */
+    void initializeRequestIdSequences();
+    
     /**
      * 充电后更新用户当前电量
      * @param request 充电请求
@@ -2,6 +2,10 @@ package com.example.backend.service;
 
 import com.example.backend.model.entity.ChargingPile;
 import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.service.scheduler.StationSnapshot;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 调度器服务接口
@@ -52,4 +56,29 @@ public interface SchedulerService {
      * 定期扫描等候区，为未分配充电桩的请求分配最优充电桩
      */
     void processWaitingRequests();
+    
+    /**
+     * 在充电站快照上执行一轮调度，只计算分配方案，不访问数据库
+     * 快照中的请求会被更新为分配后的状态，调用方负责持久化或在模拟环境中应用
+     * 
+     * @param snapshot 充电站快照
+     * @return 本轮分配的请求（已设置充电桩和队列位置）
+     */
+    List<ChargingRequest> planAssignments(StationSnapshot snapshot);
+    
+    /**
+     * 获取调度运行统计
+     * 包括当前调度策略，以及各策略的求解耗时、每轮分配车辆数、目标值和内部求解器的统计
+     * 
+     * @return 统计项 -> 统计值
+     */
+    Map<String, Object> getSchedulerMetrics();
+    
+    /**
+     * 获取影子调度对比统计
+     * 候选策略与当前策略在同一快照上的目标值差、makespan差、求解耗时和分配不一致比例
+     * 
+     * @return 统计项 -> 统计值，未启用影子调度时为空
+     */
+    Map<String, Object> getShadowMetrics();
 } 
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.example.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.infrastructure.sequence.SequenceAllocator;
 import com.example.backend.mapper.ChargingBillMapper;
 import com.example.backend.mapper.ChargingPileMapper;
 import com.example.backend.model.entity.ChargingBill;
@@ -11,10 +13,12 @@ import com.example.backend.service.ChargingBillService;
 import com.example.backend.service.PricingService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -33,6 +37,9 @@ public class ChargingBillServiceImpl extends ServiceImpl<ChargingBillMapper, Cha
     @Autowired
     private PricingService pricingService;
     
+    @Autowired
+    private SequenceAllocator sequenceAllocator;
+    
     @Override
     public ChargingBill generateBill(ChargingRequest request) {
         if (request == null || request.getStartTime() == null || request.getEndTime() == null) {
@@ -94,10 +101,43 @@ public class ChargingBillServiceImpl extends ServiceImpl<ChargingBillMapper, Cha
     
     @Override
     public String generateBillNumber() {
-        // 格式：BILL + 年月日 + 4位序号
-        String dateStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String prefix = "BILL" + dateStr;
+        // 格式：BILL + 年月日 + 4位序号，序号从当天的序列中分配，号段用完前不访问数据库
+        String prefix = getBillNumberPrefix(LocalDate.now());
+        long nextSeq = sequenceAllocator.next(getBillNumberSequenceName(prefix),
+                () -> seedBillNumberSequence(prefix));
         
+        return prefix + String.format("%04d", nextSeq);
+    }
+    
+    /**
+     * 准备当天的详单编号序列
+     * 启动时和每天零点执行：按已有详单恢复当天序列并预留号段，丢弃前一天的号段。
+     * 每个实例都会执行，序列只由先插入的实例创建；前一天的序列保留给零点前后仍在结算的请求，更早的序列删除
+     */
+    @Override
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void initializeBillNumberSequence() {
+        LocalDate today = LocalDate.now();
+        String prefix = getBillNumberPrefix(today);
+        sequenceAllocator.prefetch(getBillNumberSequenceName(prefix), () -> seedBillNumberSequence(prefix));
+
+        String yesterday = getBillNumberSequenceName(getBillNumberPrefix(today.minusDays(1)));
+        sequenceAllocator.release(yesterday);
+        sequenceAllocator.removeBefore(ChargingConstants.SEQUENCE_BILL_NUMBER_PREFIX, yesterday);
+    }
+    
+    private String getBillNumberPrefix(LocalDate date) {
+        return "BILL" + date.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+    
+    private String getBillNumberSequenceName(String prefix) {
+        return ChargingConstants.SEQUENCE_BILL_NUMBER_PREFIX + prefix;
+    }
+    
+    /**
+     * 当天序列的初始值：当天已有详单的最大序号+1，每天只在序列创建时查询一次
+     */
+    private long seedBillNumberSequence(String prefix) {
         // 查询当天最大序号
         LambdaQueryWrapper<ChargingBill> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.likeRight(ChargingBill::getBillNumber, prefix)
@@ -118,7 +158,7 @@ public class ChargingBillServiceImpl extends ServiceImpl<ChargingBillMapper, Cha
             }
         }
         
-        return prefix + String.format("%04d", nextSeq);
+        return nextSeq;
     }
     
     /**
@@ -12,7 +12,12 @@ import com.example.backend.service.ChargingPileMonitorService;
 import com.example.backend.service.ChargingPileService;
 import com.example.backend.service.ChargingBillService;
 import com.example.backend.service.ChargingRequestService;
+import com.example.backend.service.scheduler.ActiveRequestCache;
+import com.example.backend.service.scheduler.PileLoadIndex;
+import com.example.backend.service.scheduler.StationChangedEvent;
+import com.example.backend.service.scheduler.WaitingAreaQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -55,6 +60,18 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
     @Autowired
     private ChargingRequestService chargingRequestService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PileLoadIndex pileLoadIndex;
+    
+    @Autowired
+    private WaitingAreaQueue waitingAreaQueue;
+    
+    @Autowired
+    private ActiveRequestCache activeRequestCache;
+    
     // 缓存充电桩的上一次状态，用于检测状态变化
     private final Map<Integer, String> lastKnownStatus = new ConcurrentHashMap<>();
 
@@ -90,9 +107,14 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             if (previousStatus != null && !previousStatus.equals(currentStatus)) {
                 // 处理状态变化
                 handleStatusChange(pile, previousStatus, currentStatus);
+                pileLoadIndex.onPileStatusChanged(pile);
                 
                 // 更新缓存中的状态
                 lastKnownStatus.put(pileId, currentStatus);
+                
+                // 故障车辆已放回等候区，立即触发调度
+                eventPublisher.publishEvent(new StationChangedEvent(
+                    StationChangedEvent.Reason.PILE_STATUS_CHANGED, pile.getPileNumber()));
             }
         }
     }
@@ -156,8 +178,7 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             );
             
             // 向用户发送通知
-            String notificationKey = "notification_user_" + request.getUserId();
-            sseManager.sendToEmitter(notificationKey, notification);
+            sseManager.sendNotification(request.getUserId(), ChargingConstants.SSE_EVENT_NOTIFICATION, notification);
             
         } catch (Exception e) {
         }
@@ -212,6 +233,8 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             chargingRequest.setStatus(ChargingConstants.STATUS_COMPLETED);
             chargingRequest.setEndTime(LocalDateTime.now());
             chargingRequestMapper.updateById(chargingRequest);
+            activeRequestCache.invalidate(chargingRequest.getUserId());
+            pileLoadIndex.onLeftPile(chargingRequest);
             
             // 生成充电详单
             try {
@@ -265,12 +288,25 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             
             // 更新数据库
             chargingRequestMapper.update(null, updateWrapper);
+            activeRequestCache.invalidate(request.getUserId());
+            pileLoadIndex.onLeftPile(request);
+            waitingAreaQueue.onEntered(toPriorityWaiting(request));
             
             // 发送故障通知给用户
             sendFailureNotification(request, pile);
         }
     }
     
+    /**
+     * 与数据库中的更新保持一致：请求改为优先等待并离开充电桩队列
+     */
+    private ChargingRequest toPriorityWaiting(ChargingRequest request) {
+        request.setStatus(ChargingConstants.STATUS_PRIORITY_WAITING);
+        request.setChargingPileId(null);
+        request.setQueuePosition(null);
+        return request;
+    }
+    
     /**
      * 获取当前在指定充电桩充电的请求
      * 
@@ -313,6 +349,8 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             
             // 保存新请求
             chargingRequestMapper.insert(newRequest);
+            activeRequestCache.invalidate(newRequest.getUserId());
+            waitingAreaQueue.onEntered(newRequest);
             
         } catch (Exception e) {
         }
@@ -349,8 +387,7 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             );
             
             // 向用户发送通知
-            String notificationKey = "notification_user_" + request.getUserId();
-            sseManager.sendToEmitter(notificationKey, notification);
+            sseManager.sendNotification(request.getUserId(), ChargingConstants.SSE_EVENT_NOTIFICATION, notification);
             
         } catch (Exception e) {
         }
@@ -400,6 +437,9 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
                     
                     // 更新数据库
                     chargingRequestMapper.update(null, updateWrapper);
+                    activeRequestCache.invalidate(request.getUserId());
+                    pileLoadIndex.onLeftPile(request);
+                    waitingAreaQueue.onEntered(toPriorityWaiting(request));
                     
                     // 发送重新调度通知给用户
                     sendRebalanceNotification(request, pile);
@@ -430,8 +470,7 @@ public class ChargingPileMonitorServiceImpl implements ChargingPileMonitorServic
             );
             
             // 向用户发送通知
-            String notificationKey = "notification_user_" + request.getUserId();
-            sseManager.sendToEmitter(notificationKey, notification);
+            sseManager.sendNotification(request.getUserId(), ChargingConstants.SSE_EVENT_NOTIFICATION, notification);
             
         } catch (Exception e) {
         }
@@ -8,12 +8,13 @@ import com.example.backend.mapper.ChargingRequestMapper;
 import com.example.backend.model.entity.ChargingPile;
 import com.example.backend.model.entity.ChargingRequest;
 import com.example.backend.service.ChargingPileService;
+import com.example.backend.service.scheduler.PileLoadIndex;
+import com.example.backend.service.scheduler.StationChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, ChargingPile> implements ChargingPileService {
@@ -21,6 +22,12 @@ public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, Cha
     @Autowired
     private ChargingRequestMapper chargingRequestMapper;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PileLoadIndex pileLoadIndex;
+    
     @Override
     public List<ChargingPile> getAllPiles() {
         return list();
@@ -45,33 +52,8 @@ public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, Cha
     
     @Override
     public double calculateWaitingTime(Integer pileId) {
-        // 获取该充电桩的所有等待和充电中的请求
-        LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ChargingRequest::getChargingPileId, pileId)
-                   .in(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING, ChargingConstants.STATUS_CHARGING)
-                   .orderBy(true, true, ChargingRequest::getQueuePosition);
-        
-        List<ChargingRequest> requests = chargingRequestMapper.selectList(queryWrapper);
-        
-        if (requests.isEmpty()) {
-            return 0.0;
-        }
-        
-        // 获取充电桩信息
-        ChargingPile pile = getById(pileId);
-        if (pile == null) {
-            return 0.0;
-        }
-        
-        // 计算总等待时间（分钟）
-        double totalWaitingTime = 0.0;
-        for (ChargingRequest request : requests) {
-            // 充电时间 = 充电量 / 充电功率 * 60分钟
-            double chargingTime = (request.getChargingAmount() / pile.getChargingPower()) * 60;
-            totalWaitingTime += chargingTime;
-        }
-        
-        return totalWaitingTime;
+        // 从内存中的充电桩负载索引读取，不查询数据库
+        return pileLoadIndex.getWaitingTime(pileId);
     }
     
     @Override
@@ -87,24 +69,8 @@ public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, Cha
     
     @Override
     public ChargingPile findOptimalPile(String chargingMode, Double chargingAmount) {
-        // 根据充电模式确定充电桩类型
-        String pileType = ChargingConstants.MODE_FAST.equals(chargingMode) ? 
-                ChargingConstants.PILE_TYPE_FAST : ChargingConstants.PILE_TYPE_SLOW;
-        
-        // 获取对应类型的可用充电桩
-        List<ChargingPile> availablePiles = getAvailablePilesByType(pileType);
-        if (availablePiles.isEmpty()) {
-            return null;
-        }
-        
-        // 计算每个充电桩的总完成时间（等待时间 + 自己充电时间）
-        Optional<ChargingPile> optimalPile = availablePiles.stream().min(Comparator.comparingDouble(pile -> {
-            double waitingTime = calculateWaitingTime(pile.getId());
-            double selfChargingTime = (chargingAmount / pile.getChargingPower()) * 60; // 转换为分钟
-            return waitingTime + selfChargingTime;
-        }));
-        
-        return optimalPile.orElse(null);
+        // 在内存中的充电桩负载索引上扫描对应类型的充电桩，不查询数据库
+        return pileLoadIndex.findOptimalPile(chargingMode, chargingAmount);
     }
     
     @Override
@@ -133,7 +99,13 @@ public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, Cha
             }
             
             pile.setStatus(newStatus);
-            return updateById(pile);
+            boolean updated = updateById(pile);
+            if (updated) {
+                pileLoadIndex.onPileStatusChanged(pile);
+                eventPublisher.publishEvent(new StationChangedEvent(
+                    StationChangedEvent.Reason.PILE_STATUS_CHANGED, pileNumber));
+            }
+            return updated;
         } catch (Exception e) {
             return false;
         }
@@ -170,6 +142,9 @@ public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, Cha
             // 保存到数据库
             boolean saved = save(newPile);
             if (saved) {
+                pileLoadIndex.onPileAdded(newPile);
+                eventPublisher.publishEvent(new StationChangedEvent(
+                    StationChangedEvent.Reason.PILE_ADDED, newPile.getPileNumber()));
                 return newPile;
             } else {
                 return null;
@@ -203,7 +178,11 @@ public class ChargingPileServiceImpl extends ServiceImpl<ChargingPileMapper, Cha
             }
             
             // 删除充电桩
-            return removeById(pile.getId());
+            boolean removed = removeById(pile.getId());
+            if (removed) {
+                pileLoadIndex.onPileRemoved(pile.getId());
+            }
+            return removed;
         } catch (Exception e) {
             throw new RuntimeException("删除充电桩失败: " + e.getMessage());
         }
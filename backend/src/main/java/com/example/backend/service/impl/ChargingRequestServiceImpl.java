@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.constant.ChargingConstants;
 import com.example.backend.exception.ChargingAmountValidationException;
+import com.example.backend.infrastructure.sequence.SequenceAllocator;
 import com.example.backend.mapper.ChargingRequestMapper;
 import com.example.backend.model.dto.ChargingRequestDTO;
 import com.example.backend.model.dto.ChargingResponseDTO;
@@ -12,8 +13,14 @@ import com.example.backend.model.entity.ChargingPile;
 import com.example.backend.model.entity.ChargingRequest;
 import com.example.backend.model.entity.User;
 import com.example.backend.service.*;
+import com.example.backend.service.scheduler.ActiveRequestCache;
+import com.example.backend.service.scheduler.EtaEngine;
+import com.example.backend.service.scheduler.PileLoadIndex;
+import com.example.backend.service.scheduler.StationChangedEvent;
+import com.example.backend.service.scheduler.WaitingAreaQueue;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,9 +45,6 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
     @Autowired
     private UserService userService;
     
-    @Autowired
-    private SystemConfigService systemConfigService;
-    
     @Autowired
     private ChargingStatusService chargingStatusService;
     
@@ -50,9 +54,32 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
     @Autowired
     private SystemConstantService systemConstantService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PileLoadIndex pileLoadIndex;
+    
+    @Autowired
+    private WaitingAreaQueue waitingAreaQueue;
+    
+    @Autowired
+    private EtaEngine etaEngine;
+    
+    @Autowired
+    private SequenceAllocator sequenceAllocator;
+    
+    @Autowired
+    private ActiveRequestCache activeRequestCache;
+    
     @Override
     @Transactional
     public ChargingResponseDTO submitRequest(Long userId, ChargingRequestDTO requestDTO) {
+        // 等候区已满时直接拒绝，不访问数据库
+        if (waitingAreaQueue.isFull()) {
+            return new ChargingResponseDTO(null, "等候区已满，请稍后再试", "ERROR");
+        }
+        
         // 检查用户是否已设置电池容量
         User user = userService.getUserById(userId);
         if (user == null || user.getBatteryCapacity() == null || user.getBatteryCapacity() <= 0) {
@@ -83,14 +110,8 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
             );
         }
         
-        // 检查等候区是否已满（从数据库获取等候区容量）
-        String capacityStr = systemConfigService.getConfigValue(ChargingConstants.CONFIG_WAITING_AREA_CAPACITY);
-        Integer waitingAreaCapacity = Integer.parseInt(capacityStr);
-        long currentWaitingCount = count(new LambdaQueryWrapper<ChargingRequest>()
-                .eq(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING)
-                .isNull(ChargingRequest::getChargingPileId));
-        
-        if (currentWaitingCount >= waitingAreaCapacity) {
+        // 预占等候区位置（内存中无锁计数，不查询数据库），事务结束后释放
+        if (!waitingAreaQueue.tryAdmit()) {
             return new ChargingResponseDTO(null, "等候区已满，请稍后再试", "ERROR");
         }
         
@@ -109,6 +130,9 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         
         // 保存请求
         save(request);
+        activeRequestCache.invalidate(request.getUserId());
+        waitingAreaQueue.onEntered(request);
+        publishStationChanged(StationChangedEvent.Reason.REQUEST_SUBMITTED, requestId);
         
         // 返回响应
         return new ChargingResponseDTO(requestId, "充电请求已提交，排队号码: " + requestId, ChargingConstants.STATUS_WAITING);
@@ -154,10 +178,12 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         request.setStatus(ChargingConstants.STATUS_CHARGING);
         request.setStartTime(LocalDateTime.now());
         updateById(request);
+        activeRequestCache.invalidate(request.getUserId());
         
         // 更新充电桩状态
         pile.setStatus(ChargingConstants.PILE_STATUS_CHARGING);
         chargingPileService.updateById(pile);
+        pileLoadIndex.onChargingStarted(request);
         
         return new ChargingResponseDTO(requestId, "充电已开始", ChargingConstants.STATUS_CHARGING);
     }
@@ -185,6 +211,7 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         request.setStatus(ChargingConstants.STATUS_COMPLETED);
         request.setEndTime(LocalDateTime.now());
         updateById(request);
+        activeRequestCache.invalidate(request.getUserId());
         
         // 更新充电桩状态
         ChargingPile pile = chargingPileService.getById(request.getChargingPileId());
@@ -196,6 +223,8 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         
         // 更新同充电桩队列中的其他请求位置
         updateQueuePositions(request.getChargingPileId());
+        pileLoadIndex.onLeftPile(request);
+        publishStationChanged(StationChangedEvent.Reason.CHARGING_STOPPED, requestId);
         
         return new ChargingResponseDTO(requestId, "充电已结束", ChargingConstants.STATUS_COMPLETED);
     }
@@ -215,6 +244,7 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         request.setStatus(ChargingConstants.STATUS_COMPLETED);
         request.setEndTime(LocalDateTime.now());
         updateById(request);
+        activeRequestCache.invalidate(request.getUserId());
         
         // 更新充电桩状态
         ChargingPile pile = chargingPileService.getById(request.getChargingPileId());
@@ -228,6 +258,8 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         
         // 更新同充电桩队列中的其他请求位置
         updateQueuePositions(request.getChargingPileId());
+        pileLoadIndex.onLeftPile(request);
+        publishStationChanged(StationChangedEvent.Reason.CHARGING_STOPPED, requestId);
         
         // 推送充电完成状态到前端
         chargingStatusService.pushChargingStatusUpdate(requestId);
@@ -255,12 +287,16 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         // 更新请求状态
         request.setStatus(ChargingConstants.STATUS_CANCELED);
         updateById(request);
+        activeRequestCache.invalidate(request.getUserId());
+        waitingAreaQueue.onLeft(request);
         
         // 如果请求已分配到充电桩
         if (request.getChargingPileId() != null) {
             // 更新同充电桩队列中的其他请求位置
             updateQueuePositions(request.getChargingPileId());
+            pileLoadIndex.onLeftPile(request);
         }
+        publishStationChanged(StationChangedEvent.Reason.REQUEST_CANCELED, requestId);
         
         return new ChargingResponseDTO(requestId, "充电请求已取消", ChargingConstants.STATUS_CANCELED);
     }
@@ -272,8 +308,16 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
             return new ChargingStatusDTO("NOT_FOUND", 0.0, 0.0, 0.0, 0.0, 0, false, null, false, null);
         }
         
-        // 获取用户信息以获取电池总容量和当前电量
+        // 获取用户信息以获取电池总容量和当前电量，以及所在充电桩
         User user = userService.getUserById(request.getUserId());
+        ChargingPile pile = request.getChargingPileId() != null
+                ? chargingPileService.getById(request.getChargingPileId()) : null;
+        return buildChargingStatus(request, user, pile);
+    }
+    
+    @Override
+    public ChargingStatusDTO buildChargingStatus(ChargingRequest request, User user, ChargingPile pile) {
+        String requestId = request.getRequestId();
         Double totalCapacity = (user != null && user.getBatteryCapacity() != null) ? user.getBatteryCapacity() : 0.0;
         Double currentPower = (user != null && user.getCurrentPower() != null) ? user.getCurrentPower() : 0.0;
         
@@ -290,19 +334,25 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         BigDecimal currentTotalFee = BigDecimal.ZERO;
         BigDecimal estimatedTotalFee = BigDecimal.ZERO;
         
-        // 如果有充电桩ID，获取充电桩状态
-        if (chargingPileId != null) {
-            ChargingPile pile = chargingPileService.getById(chargingPileId);
-            if (pile != null) {
-                chargingPileStatus = pile.getStatus();
-            }
+        // 如果有充电桩，获取充电桩状态
+        if (pile != null) {
+            chargingPileStatus = pile.getStatus();
+        }
+        
+        // 排队中的请求从推演结果中取预计开始和结束充电时间
+        EtaEngine.Eta eta = null;
+        if (ChargingConstants.STATUS_WAITING.equals(status) || ChargingConstants.STATUS_PRIORITY_WAITING.equals(status)) {
+            eta = etaEngine.getEta(requestId);
         }
         
         // 如果已分配充电桩且在等待状态，判断是否在队首
         if (ChargingConstants.STATUS_WAITING.equals(status) && chargingPileId != null) {
             // 检查请求在充电桩队列中的位置
             isQueueFirst = (request.getQueuePosition() != null && request.getQueuePosition() == 1);
-            
+        }
+        
+        // 排队中的请求计算预计费用：已分配充电桩，或推演出了开始充电时间
+        if (ChargingConstants.STATUS_WAITING.equals(status) && (chargingPileId != null || eta != null)) {
             // 计算预计费用（基于请求充电量）
             if (requestedAmount != null && requestedAmount > 0) {
                 // 根据充电模式获取充电功率
@@ -312,7 +362,9 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
                 double exactChargingMinutes = (requestedAmount * 60) / chargingPower;
                 long estimatedChargingMinutes = Math.round(exactChargingMinutes);
                 
-                LocalDateTime estimatedStartTime = LocalDateTime.now();
+                // 分时电价与开始时间有关，按推演的开始时间计算，没有推演结果时按立即开始计算
+                LocalDateTime estimatedStartTime = eta != null && eta.getStartTime().isAfter(LocalDateTime.now())
+                        ? eta.getStartTime() : LocalDateTime.now();
                 LocalDateTime estimatedEndTime = estimatedStartTime.plusMinutes(estimatedChargingMinutes);
                 
                 BigDecimal chargingFee = chargingBillService.calculateChargingFeeWithTimeBasedPricing(
@@ -329,8 +381,6 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
         
         if (ChargingConstants.STATUS_CHARGING.equals(status)) {
             // 计算本次充电的已充电量和剩余时间
-            ChargingPile pile = chargingPileService.getById(request.getChargingPileId());
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime startTime = request.getStartTime();
             
@@ -381,7 +431,6 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
             
         } else if (ChargingConstants.STATUS_COMPLETED.equals(status)) {
             // 对于已完成的请求，计算实际充电量和费用
-            ChargingPile pile = chargingPileService.getById(request.getChargingPileId());
             // 计算充电时长（分钟）
             long chargedMinutes = ChronoUnit.MINUTES.between(request.getStartTime(), request.getEndTime());
             // 计算实际充电量
@@ -403,7 +452,7 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
             }
         }
         
-        return new ChargingStatusDTO(
+        ChargingStatusDTO statusDTO = new ChargingStatusDTO(
                 status,
                 currentPower + chargedAmount,  // 实时当前电量 = 原始电量 + 已充电量
                 chargedAmount,  // 本次充电的已充电量
@@ -417,6 +466,11 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
                 currentTotalFee,
                 estimatedTotalFee
         );
+        if (eta != null) {
+            statusDTO.setEstimatedStartTime(eta.getStartTime());
+            statusDTO.setEstimatedEndTime(eta.getEndTime());
+        }
+        return statusDTO;
     }
     
     @Override
@@ -434,7 +488,8 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
     @Override
     public int getQueueCountBefore(String requestId) {
         ChargingRequest request = getRequestByRequestId(requestId);
-        if (request == null || !ChargingConstants.STATUS_WAITING.equals(request.getStatus())) {
+        if (request == null || (!ChargingConstants.STATUS_WAITING.equals(request.getStatus()) && 
+                                !ChargingConstants.STATUS_PRIORITY_WAITING.equals(request.getStatus()))) {
             return 0;
         }
         
@@ -443,13 +498,8 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
             return request.getQueuePosition() - 1;
         }
         
-        // 如果还未分配充电桩，计算在等候区中的位置
-        // 找出所有等待中且创建时间早于当前请求的请求数量
-        long countValue = count(new LambdaQueryWrapper<ChargingRequest>()
-                .eq(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING)
-                .lt(ChargingRequest::getCreateTime, request.getCreateTime()));
-        
-        return (int) countValue;
+        // 如果还未分配充电桩，从等候区队列的排名索引计算位置，不查询数据库
+        return waitingAreaQueue.countBefore(request);
     }
     
     /**
@@ -471,57 +521,54 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
             ChargingRequest request = queueRequests.get(i);
             request.setQueuePosition(i + 1);
             updateById(request);
+            activeRequestCache.invalidate(request.getUserId());
         }
     }
     
+    /**
+     * 发布充电站状态变化事件，事务提交后触发一次调度
+     */
+    private void publishStationChanged(StationChangedEvent.Reason reason, String requestId) {
+        eventPublisher.publishEvent(new StationChangedEvent(reason, requestId));
+    }
+    
     /**
      * 生成请求ID
-     * 调用mapper层的复杂查询，简化service层逻辑
+     * 从该模式的请求ID序列中分配序号，号段在内存中递增，不再扫描请求表；
+     * 并发提交和多个实例之间分配的序号都不会重复
      */
     @Override
     public String generateRequestId(String chargingMode) {
-        String prefix = ChargingConstants.MODE_FAST.equals(chargingMode) ? 
-                ChargingConstants.REQUEST_PREFIX_FAST : ChargingConstants.REQUEST_PREFIX_SLOW;
-        
-        try {
-            // 调用mapper层查询最大序列号
-            Integer maxSeq = getBaseMapper().selectMaxSequenceByModeAndPrefix(
-                chargingMode, prefix, prefix.length() + 1);
-            
-            // 如果没有找到记录，从1开始
-            int nextSeq = (maxSeq != null) ? maxSeq + 1 : 1;
-            
-            return prefix + nextSeq;
-            
-        } catch (Exception e) {
-            // 如果查询失败，回退到简单查询
-            return generateRequestIdFallback(chargingMode, prefix);
+        String prefix = getRequestIdPrefix(chargingMode);
+        return prefix + sequenceAllocator.next(getRequestIdSequenceName(prefix),
+                () -> seedRequestIdSequence(chargingMode, prefix));
+    }
+    
+    @Override
+    public void initializeRequestIdSequences() {
+        for (String chargingMode : new String[] {ChargingConstants.MODE_FAST, ChargingConstants.MODE_SLOW}) {
+            String prefix = getRequestIdPrefix(chargingMode);
+            sequenceAllocator.ensureSequence(getRequestIdSequenceName(prefix),
+                    () -> seedRequestIdSequence(chargingMode, prefix));
         }
     }
     
+    private String getRequestIdPrefix(String chargingMode) {
+        return ChargingConstants.MODE_FAST.equals(chargingMode) ? 
+                ChargingConstants.REQUEST_PREFIX_FAST : ChargingConstants.REQUEST_PREFIX_SLOW;
+    }
+    
+    private String getRequestIdSequenceName(String prefix) {
+        return ChargingConstants.SEQUENCE_REQUEST_ID_PREFIX + prefix;
+    }
+    
     /**
-     * 后备方案：简单的ID生成方法
-     * 当复杂查询失败时使用
+     * 序列的初始值：已有请求ID的最大序号+1，只在序列首次创建时扫描一次请求表
      */
-    private String generateRequestIdFallback(String chargingMode, String prefix) {
-        // 查询所有该模式的请求ID，仅选择ID字段
-        LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ChargingRequest::getChargingMode, chargingMode)
-                   .likeRight(ChargingRequest::getRequestId, prefix)
-                   .select(ChargingRequest::getRequestId);
-        
-        List<ChargingRequest> requests = list(queryWrapper);
-        
-        int maxSeq = 0;
-        for (ChargingRequest request : requests) {
-            if (request.getRequestId() != null && request.getRequestId().startsWith(prefix)) {
-                String numPart = request.getRequestId().substring(prefix.length());
-                int seq = Integer.parseInt(numPart);
-                maxSeq = Math.max(maxSeq, seq);
-            }
-        }
-        
-        return prefix + (maxSeq + 1);
+    private long seedRequestIdSequence(String chargingMode, String prefix) {
+        Integer maxSeq = getBaseMapper().selectMaxSequenceByModeAndPrefix(
+            chargingMode, prefix, prefix.length() + 1);
+        return (maxSeq != null) ? maxSeq + 1 : 1;
     }
     
     @Override
@@ -574,6 +621,8 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
                 // 取消原来的请求
                 request.setStatus(ChargingConstants.STATUS_CANCELED);
                 updateById(request);
+                activeRequestCache.invalidate(request.getUserId());
+                waitingAreaQueue.onLeft(request);
                 
                 // 生成新的请求ID
                 String newRequestId = generateRequestId(requestDTO.getChargingMode());
@@ -589,12 +638,18 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
                 
                 // 保存新请求
                 save(newRequest);
+                activeRequestCache.invalidate(newRequest.getUserId());
+                waitingAreaQueue.onEntered(newRequest);
+                publishStationChanged(StationChangedEvent.Reason.REQUEST_MODIFIED, newRequestId);
                 
                 return new ChargingResponseDTO(newRequestId, "充电模式已修改，新的排队号码为: " + newRequestId, ChargingConstants.STATUS_WAITING);
             } else {
                 // 仅修改充电量，不变更排队号
                 request.setChargingAmount(requestDTO.getChargingAmount());
                 updateById(request);
+                activeRequestCache.invalidate(request.getUserId());
+                waitingAreaQueue.onEntered(request);
+                publishStationChanged(StationChangedEvent.Reason.REQUEST_MODIFIED, requestId);
                 
                 return new ChargingResponseDTO(requestId, "充电量已修改", ChargingConstants.STATUS_WAITING);
             }
@@ -622,16 +677,18 @@ public class ChargingRequestServiceImpl extends ServiceImpl<ChargingRequestMappe
      * @return 活跃的充电请求，如果没有则返回null
      */
     public ChargingRequest getActiveRequest(Long userId) {
-        // 查询用户的WAITING、PRIORITY_WAITING或CHARGING状态的请求
-        List<ChargingRequest> activeRequests = list(new LambdaQueryWrapper<ChargingRequest>()
-                .eq(ChargingRequest::getUserId, userId)
-                .in(ChargingRequest::getStatus, 
-                    ChargingConstants.STATUS_WAITING, 
-                    ChargingConstants.STATUS_PRIORITY_WAITING,
-                    ChargingConstants.STATUS_CHARGING));
-        
-        // 一个用户应该只有一个活跃请求
-        return activeRequests.isEmpty() ? null : activeRequests.get(0);
+        // 从活跃请求缓存中获取，未命中时查询WAITING、PRIORITY_WAITING或CHARGING状态的请求
+        return activeRequestCache.get(userId);
+    }
+    
+    @Override
+    public Map<String, Object> getActiveRequestCacheMetrics() {
+        return activeRequestCache.getMetrics();
+    }
+    
+    @Override
+    public void setActiveRequestCacheConsistencyCheck(boolean enabled) {
+        activeRequestCache.setConsistencyCheck(enabled);
     }
     
     @Override
@@ -3,29 +3,38 @@ package com.example.backend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.example.backend.constant.ChargingConstants;
 import com.example.backend.infrastructure.sse.SseManager;
+import com.example.backend.mapper.ChargingPileMapper;
 import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.mapper.UserMapper;
 import com.example.backend.model.dto.ChargingStatusDTO;
 import com.example.backend.model.entity.ChargingPile;
 import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.model.entity.User;
 import com.example.backend.service.ChargingStatusService;
 import com.example.backend.service.ChargingPileService;
 import com.example.backend.service.ChargingRequestService;
+import com.example.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 充电状态服务实现类
  * 
  * 实现功能：
- * - 状态监控：每10秒检查所有充电中的请求状态
+ * - 状态监控：每5秒检查所有充电中的请求状态，整轮只做三次批量查询，不持有事务
  * - 自动停止：当达到目标充电量时自动停止充电
  * - 实时推送：向连接的客户端推送充电状态更新
  * - 后续处理：处理充电完成后的调度和状态更新
@@ -49,36 +58,63 @@ public class ChargingStatusServiceImpl implements ChargingStatusService {
     @Autowired
     private SseManager sseManager;
     
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserMapper userMapper;
+    
+    @Autowired
+    private ChargingPileMapper chargingPileMapper;
+    
     /**
      * 启动充电状态监控定时任务
      * 每5秒执行一次，向所有活跃请求推送状态更新，并检查是否需要自动停止充电
+     * 
+     * 分阶段执行，整轮不持有事务：
+     * 1. 批量读取快照：活跃请求、所属用户、所在充电桩共三次查询
+     * 2. 需要自动停止的请求逐个在各自的短事务中结束充电（结束后会推送完成状态）
+     * 3. 其余请求中用户有充电状态连接的并行计算状态，不再查询数据库
+     * 4. 放入各连接的发送队列，由SSE写线程发送，不阻塞定时任务
      */
     @Scheduled(fixedRate = 5000)
     @Override
-    @Transactional
     public void startStatusPushScheduler() {
-        // 获取所有正在充电的请求
-        List<ChargingRequest> chargingRequests = getChargingRequests();
+        // 1. 批量读取快照
+        List<ChargingRequest> activeRequests = getActiveRequests();
+        if (activeRequests.isEmpty()) {
+            return;
+        }
+        Map<Long, User> users = getUsers(activeRequests);
+        Map<Integer, ChargingPile> piles = getPiles(activeRequests);
         
-        for (ChargingRequest request : chargingRequests) {
-            String requestId = request.getRequestId();
-            
-            // 检查是否需要自动停止充电
-            if (shouldAutoStopCharging(request)) {
-                // 方法内部会自动推送完成状态到前端
-                chargingRequestService.autoStopCharging(requestId);
+        // 2. 自动停止达到目标充电量的请求
+        List<ChargingRequest> pushRequests = new ArrayList<>();
+        for (ChargingRequest request : activeRequests) {
+            if (ChargingConstants.STATUS_CHARGING.equals(request.getStatus())
+                    && shouldAutoStopCharging(request, piles.get(request.getChargingPileId()))) {
+                try {
+                    // 方法内部会自动推送完成状态到前端
+                    chargingRequestService.autoStopCharging(request.getRequestId());
+                } catch (Exception e) {
+                    // 单个请求结束失败不影响其他请求，下一轮重试
+                }
             } else {
-                // 正常充电中，推送实时状态更新
-                pushChargingStatusUpdate(requestId);
+                pushRequests.add(request);
             }
         }
         
-        // 获取所有等待中的请求并推送状态更新
-        List<ChargingRequest> waitingRequests = getWaitingRequests();
+        // 3. 并行计算状态
+        List<Map.Entry<Long, ChargingStatusDTO>> updates = pushRequests.parallelStream()
+                .filter(request -> request.getUserId() != null
+                        && sseManager.isConnected(request.getUserId(), ChargingConstants.SSE_EVENT_CHARGING_STATUS))
+                .map(request -> buildStatusUpdate(request, users, piles))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
         
-        for (ChargingRequest request : waitingRequests) {
-            // 推送等待状态更新
-            pushChargingStatusUpdate(request.getRequestId());
+        // 4. 入队推送
+        for (Map.Entry<Long, ChargingStatusDTO> update : updates) {
+            sseManager.sendToUser(update.getKey(), ChargingConstants.SSE_EVENT_CHARGING_STATUS, update.getValue());
         }
     }
     
@@ -91,39 +127,55 @@ public class ChargingStatusServiceImpl implements ChargingStatusService {
     @Override
     public void pushChargingStatusUpdate(String requestId) {
         try {
-            // 获取最新状态
-            ChargingStatusDTO statusDTO = chargingRequestService.getChargingStatus(requestId);
-            if (statusDTO == null) {
+            // 获取请求信息以找到用户ID
+            ChargingRequest request = chargingRequestService.getRequestByRequestId(requestId);
+            if (request == null || request.getUserId() == null
+                    || !sseManager.isConnected(request.getUserId(), ChargingConstants.SSE_EVENT_CHARGING_STATUS)) {
                 return;
             }
             
-            // 获取请求信息以找到用户ID
-            ChargingRequest request = chargingRequestService.getRequestByRequestId(requestId);
-            if (request != null && request.getUserId() != null) {
-                String userKey = "charge_user_" + request.getUserId();
-                
-                // 推送给用户
-                sseManager.sendToEmitter(userKey, statusDTO);
+            // 获取最新状态，使用已查出的请求，不再按请求ID重复查询
+            User user = userService.getUserById(request.getUserId());
+            ChargingPile pile = request.getChargingPileId() != null
+                    ? chargingPileService.getById(request.getChargingPileId()) : null;
+            ChargingStatusDTO statusDTO = chargingRequestService.buildChargingStatus(request, user, pile);
+            if (statusDTO == null) {
+                return;
             }
+            
+            // 推送给用户
+            sseManager.sendToUser(request.getUserId(), ChargingConstants.SSE_EVENT_CHARGING_STATUS, statusDTO);
         } catch (Exception e) {
         }
     }
     
+    /**
+     * 根据快照计算单个请求的推送内容
+     * 
+     * @return 用户ID和充电状态，计算失败时返回null
+     */
+    private Map.Entry<Long, ChargingStatusDTO> buildStatusUpdate(ChargingRequest request,
+            Map<Long, User> users, Map<Integer, ChargingPile> piles) {
+        try {
+            ChargingStatusDTO statusDTO = chargingRequestService.buildChargingStatus(
+                    request, users.get(request.getUserId()), piles.get(request.getChargingPileId()));
+            return statusDTO != null ? Map.entry(request.getUserId(), statusDTO) : null;
+        } catch (Exception e) {
+            // 数据不完整（如充电桩已被删除）时跳过本轮推送
+            return null;
+        }
+    }
+    
     /**
      * 检查是否应该自动停止充电
      * 判断标准：实际充电量是否达到或超过请求的充电量
      * 
      * @param request 充电请求
+     * @param pile 请求所在充电桩
      * @return 是否应该自动停止
      */
-    private boolean shouldAutoStopCharging(ChargingRequest request) {
-        if (request.getStartTime() == null || request.getChargingPileId() == null) {
-            return false;
-        }
-        
-        // 获取充电桩信息
-        ChargingPile pile = chargingPileService.getById(request.getChargingPileId());
-        if (pile == null) {
+    private boolean shouldAutoStopCharging(ChargingRequest request, ChargingPile pile) {
+        if (request.getStartTime() == null || pile == null) {
             return false;
         }
         
@@ -139,26 +191,48 @@ public class ChargingStatusServiceImpl implements ChargingStatusService {
     }
     
     /**
-     * 获取所有正在充电的请求
+     * 获取所有活跃请求（充电中、等待中、优先等待中）
      *
-     * @return 充电请求列表
+     * @return 活跃请求列表
      */
-    private List<ChargingRequest> getChargingRequests() {
+    private List<ChargingRequest> getActiveRequests() {
         LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_CHARGING);
+        queryWrapper.in(ChargingRequest::getStatus, ChargingConstants.STATUS_CHARGING,
+                ChargingConstants.STATUS_WAITING, ChargingConstants.STATUS_PRIORITY_WAITING);
         return chargingRequestMapper.selectList(queryWrapper);
     }
-
+    
     /**
-     * 获取所有等待中的请求
+     * 一次查询活跃请求所属的全部用户
      *
-     * @return 等待中的请求列表
+     * @return 用户ID -> 用户
      */
-    private List<ChargingRequest> getWaitingRequests() {
-        LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING)
-                   .or()
-                   .eq(ChargingRequest::getStatus, ChargingConstants.STATUS_PRIORITY_WAITING);
-        return chargingRequestMapper.selectList(queryWrapper);
+    private Map<Long, User> getUsers(List<ChargingRequest> requests) {
+        Set<Long> userIds = requests.stream()
+                .map(ChargingRequest::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (userIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return userMapper.selectByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+    }
+    
+    /**
+     * 一次查询活跃请求所在的全部充电桩
+     *
+     * @return 充电桩ID -> 充电桩
+     */
+    private Map<Integer, ChargingPile> getPiles(List<ChargingRequest> requests) {
+        Set<Integer> pileIds = requests.stream()
+                .map(ChargingRequest::getChargingPileId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (pileIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return chargingPileMapper.selectByIds(pileIds).stream()
+                .collect(Collectors.toMap(ChargingPile::getId, pile -> pile, (a, b) -> a));
     }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.backend.service.impl;
 
+import com.example.backend.constant.ChargingConstants;
 import com.example.backend.constant.PricingConstants;
 import com.example.backend.infrastructure.sse.SseManager;
 import com.example.backend.model.dto.PricingInfoDTO;
@@ -173,7 +174,7 @@ public class PricingServiceImpl implements PricingService {
     private void pushPricingUpdate(PricingInfoDTO pricingInfo) {
         try {
             // 广播给所有连接的客户端
-            sseManager.broadcast(pricingInfo);
+            sseManager.broadcast(ChargingConstants.SSE_EVENT_PRICING, pricingInfo);
         } catch (Exception e) {
         }
     }
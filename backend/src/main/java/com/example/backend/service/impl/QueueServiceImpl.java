@@ -9,14 +9,18 @@ import com.example.backend.model.entity.ChargingRequest;
 import com.example.backend.service.ChargingRequestService;
 import com.example.backend.service.QueueService;
 import com.example.backend.service.SystemConstantService;
+import com.example.backend.service.scheduler.EtaEngine;
+import com.example.backend.service.scheduler.WaitTimeEstimator;
+import com.example.backend.service.scheduler.WaitingAreaQueue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 队列状态服务实现类
@@ -24,7 +28,7 @@ import java.util.List;
  * 实现功能：
  * - 队列状态查询：包含排队号码、前方车辆数、预计等待时间
  * - 定时状态推送：每10秒向所有排队用户推送最新队列状态
- * - 等待时间估算：基于前方车辆的充电需求进行智能估算
+ * - 等待时间估算：按充电桩队列推演预计开始充电时间，无推演结果时基于前方车辆的充电需求估算
  * 
  * @author System
  * @since 1.0
@@ -44,6 +48,15 @@ public class QueueServiceImpl implements QueueService {
     @Autowired
     private SseManager sseManager;
     
+    @Autowired
+    private WaitingAreaQueue waitingAreaQueue;
+    
+    @Autowired
+    private EtaEngine etaEngine;
+    
+    // 最近一次构建的等候区等待时间前缀和
+    private volatile WaitTimeEstimator waitTimeEstimator;
+    
     /**
      * 根据请求ID获取队列状态
      * 
@@ -52,8 +65,16 @@ public class QueueServiceImpl implements QueueService {
      */
     @Override
     public QueueStatusDTO getQueueStatus(String requestId) {
-        ChargingRequest request = chargingRequestService.getRequestByRequestId(requestId);
-        
+        return buildQueueStatus(chargingRequestService.getRequestByRequestId(requestId));
+    }
+    
+    /**
+     * 根据已查出的请求构建队列状态，前方车辆数和预计等待时间都从内存中的等候区队列计算
+     * 
+     * @param request 充电请求，可以为null
+     * @return 队列状态DTO
+     */
+    private QueueStatusDTO buildQueueStatus(ChargingRequest request) {
         if (request == null) {
             return new QueueStatusDTO("NONE", 0, 0, "NONE");
         }
@@ -80,7 +101,7 @@ public class QueueServiceImpl implements QueueService {
         
         // 获取前方等待车辆数
         int queueCount = getQueueCountBefore(request);
-        int estimatedWait = calculateEstimatedWaitTime(queueCount);
+        int estimatedWait = calculateEstimatedWaitTime(request, queueCount);
         
         return new QueueStatusDTO(queueNumber, queueCount, estimatedWait, locationType);
     }
@@ -99,8 +120,8 @@ public class QueueServiceImpl implements QueueService {
             return new QueueStatusDTO("NONE", 0, 0, "NONE");
         }
         
-        // 使用现有的getQueueStatus方法
-        return getQueueStatus(request.getRequestId());
+        // 直接使用已查出的请求，不再按请求ID重复查询
+        return buildQueueStatus(request);
     }
     
     /**
@@ -114,32 +135,31 @@ public class QueueServiceImpl implements QueueService {
         
         // 直接推送每个请求的状态更新
         for (ChargingRequest request : queueRequests) {
-            pushQueueStatusUpdate(request.getRequestId());
+            pushQueueStatusUpdate(request);
         }
     }
     
     /**
      * 推送队列状态更新到指定用户
      * 整合了SSE推送逻辑，同时推送队列状态和充电状态给用户客户端
+     * 使用本轮已查出的请求，推送过程中不再查询数据库
      * 
-     * @param requestId 充电请求ID
+     * @param request 充电请求
      */
-    private void pushQueueStatusUpdate(String requestId) {
+    private void pushQueueStatusUpdate(ChargingRequest request) {
+        // 用户没有队列状态连接时不必计算
+        if (request.getUserId() == null || !sseManager.isConnected(request.getUserId(), ChargingConstants.SSE_EVENT_QUEUE_STATUS)) {
+            return;
+        }
+        
         // 获取最新队列状态
-        QueueStatusDTO queueStatusDTO = getQueueStatus(requestId);
+        QueueStatusDTO queueStatusDTO = buildQueueStatus(request);
         if (queueStatusDTO == null) {
             return;
         }
         
-        // 获取请求信息以找到用户ID
-        ChargingRequest request = chargingRequestService.getRequestByRequestId(requestId);
-        
-        if (request != null && request.getUserId() != null) {
-            String queueUserKey = "queue_user_" + request.getUserId();
-            
-            // 推送队列状态到队列SSE连接
-            sseManager.sendToEmitter(queueUserKey, queueStatusDTO);
-        }
+        // 推送队列状态到队列SSE连接，内容没有变化时SSE管理器不会重复发送
+        sseManager.sendToUser(request.getUserId(), ChargingConstants.SSE_EVENT_QUEUE_STATUS, queueStatusDTO);
     }
     
     /**
@@ -161,39 +181,7 @@ public class QueueServiceImpl implements QueueService {
         
         // 如果还未分配充电桩，计算在等候区中的位置
         // 优先队列逻辑：PRIORITY_WAITING 全部排在 WAITING 前面，同类内部按创建时间排序
-        
-        String currentStatus = request.getStatus();
-        LocalDateTime currentCreateTime = request.getCreateTime();
-        
-        int queueCount = 0;
-        
-        if (ChargingConstants.STATUS_PRIORITY_WAITING.equals(currentStatus)) {
-            // 如果当前请求是优先等待，只计算创建时间更早的优先等待请求
-            LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_PRIORITY_WAITING)
-                       .lt(ChargingRequest::getCreateTime, currentCreateTime);
-            
-            Long countValue = chargingRequestMapper.selectCount(queryWrapper);
-            queueCount = countValue.intValue();
-            
-        } else if (ChargingConstants.STATUS_WAITING.equals(currentStatus)) {
-            // 如果当前请求是普通等待，前面包括：所有优先等待 + 创建时间更早的普通等待
-            
-            // 1. 统计所有优先等待的请求
-            LambdaQueryWrapper<ChargingRequest> priorityQueryWrapper = new LambdaQueryWrapper<>();
-            priorityQueryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_PRIORITY_WAITING);
-            Long priorityCount = chargingRequestMapper.selectCount(priorityQueryWrapper);
-            
-            // 2. 统计创建时间更早的普通等待请求
-            LambdaQueryWrapper<ChargingRequest> normalQueryWrapper = new LambdaQueryWrapper<>();
-            normalQueryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING)
-                             .lt(ChargingRequest::getCreateTime, currentCreateTime);
-            Long normalCount = chargingRequestMapper.selectCount(normalQueryWrapper);
-            
-            queueCount = priorityCount.intValue() + normalCount.intValue();
-        }
-        
-        return queueCount;
+        return waitingAreaQueue.countBefore(request);
     }
     
     /**
@@ -209,60 +197,48 @@ public class QueueServiceImpl implements QueueService {
     
     /**
      * 计算预计等待时间
-     * 基于前方车辆的充电需求进行估算
+     * 优先使用按充电桩队列推演出的预计开始充电时间；
+     * 没有推演结果时（如没有可用的同类型充电桩）基于前方车辆的充电需求估算，从等候区前缀和中直接查表
      *
+     * @param request 充电请求
      * @param queueCount 前方车辆数
      * @return 预计等待时间（分钟）
      */
-    private int calculateEstimatedWaitTime(int queueCount) {
+    private int calculateEstimatedWaitTime(ChargingRequest request, int queueCount) {
+        EtaEngine.Eta eta = etaEngine.getEta(request.getRequestId());
+        if (eta != null) {
+            int waitMinutes = eta.getWaitMinutes(LocalDateTime.now());
+            return queueCount > 0 ? Math.max(waitMinutes, 1) : waitMinutes;
+        }
+        
         // 如果没有排队车辆，等待时间为0
         if (queueCount <= 0) {
             return 0;
         }
         
-        // 获取等待中和优先等待中的请求，按照优先队列逻辑排序
-        // 1. 先获取所有优先等待的请求，按创建时间排序
-        LambdaQueryWrapper<ChargingRequest> priorityQueryWrapper = new LambdaQueryWrapper<>();
-        priorityQueryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_PRIORITY_WAITING)
-                            .orderBy(true, true, ChargingRequest::getCreateTime);
-        List<ChargingRequest> priorityRequests = chargingRequestMapper.selectList(priorityQueryWrapper);
-        
-        // 2. 再获取所有普通等待的请求，按创建时间排序
-        LambdaQueryWrapper<ChargingRequest> normalQueryWrapper = new LambdaQueryWrapper<>();
-        normalQueryWrapper.eq(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING)
-                            .orderBy(true, true, ChargingRequest::getCreateTime);
-        List<ChargingRequest> normalRequests = chargingRequestMapper.selectList(normalQueryWrapper);
-        
-        // 3. 合并队列：优先等待 + 普通等待
-        List<ChargingRequest> waitingRequests = new ArrayList<>();
-        waitingRequests.addAll(priorityRequests);
-        waitingRequests.addAll(normalRequests);
-        
-        int totalWaitMinutes = 0;
-        
-        // 只计算前方等待请求的预计充电时间
-        for (ChargingRequest request : waitingRequests) {
-            // 只计算排在前面的请求
-            if (queueCount > 0) {
-                String mode = request.getChargingMode();
-                
-                double power = ChargingConstants.MODE_FAST.equals(mode) 
-                        ? (double) systemConstantService.getConstant(ChargingConstants.CONFIG_FAST_CHARGING_POWER)
-                        : (double) systemConstantService.getConstant(ChargingConstants.CONFIG_SLOW_CHARGING_POWER);
-                
-                Double chargingAmount = request.getChargingAmount();
-                if (chargingAmount == null) continue; // 跳过没有充电量的请求
-                
-                // 计算充电时间（分钟）
-                int chargeMinutes = (int) Math.ceil((chargingAmount * 60) / power);
-                totalWaitMinutes += chargeMinutes;
-                
-                queueCount--;
-            } else {
-                break;
-            }
-        }
+        int totalWaitMinutes = getWaitTimeEstimator().estimateMinutes(queueCount);
         
         return Math.max(totalWaitMinutes, 1); // 至少返回1分钟
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取当前等候区的等待时间前缀和
+     * 等候区队列或充电功率变化后才重新构建，同一轮推送中的所有用户共用一份
+     */
+    private WaitTimeEstimator getWaitTimeEstimator() {
+        Map<String, Double> powerByMode = new HashMap<>();
+        powerByMode.put(ChargingConstants.MODE_FAST,
+                (double) systemConstantService.getConstant(ChargingConstants.CONFIG_FAST_CHARGING_POWER));
+        powerByMode.put(ChargingConstants.MODE_SLOW,
+                (double) systemConstantService.getConstant(ChargingConstants.CONFIG_SLOW_CHARGING_POWER));
+        
+        // 先取版本号再读队列，构建期间队列发生变化时下次会重新构建
+        long version = waitingAreaQueue.getVersion();
+        WaitTimeEstimator estimator = waitTimeEstimator;
+        if (estimator == null || !estimator.isCurrent(version, powerByMode)) {
+            estimator = WaitTimeEstimator.build(waitingAreaQueue.getRequests(), powerByMode, version);
+            waitTimeEstimator = estimator;
+        }
+        return estimator;
+    }
+}
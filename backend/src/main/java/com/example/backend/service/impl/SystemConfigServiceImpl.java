@@ -5,6 +5,9 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.mapper.SystemConfigMapper;
 import com.example.backend.model.entity.SystemConfig;
 import com.example.backend.service.SystemConfigService;
+import com.example.backend.service.scheduler.SystemConfigChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +21,10 @@ import java.util.Map;
 @Service
 public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, SystemConfig> 
         implements SystemConfigService {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public List<SystemConfig> getAllConfigs() {
         return list();
@@ -58,6 +65,8 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
                     save(newConfig);
                 }
             }
+            // 事务提交后通知依赖配置的组件（如调度策略注册表）
+            eventPublisher.publishEvent(new SystemConfigChangedEvent(new HashMap<>(configMap)));
             return true;
         } catch (Exception e) {
             return false;
@@ -81,13 +90,20 @@ public class SystemConfigServiceImpl extends ServiceImpl<SystemConfigMapper, Sys
             queryWrapper.eq(SystemConfig::getConfigKey, configKey);
             SystemConfig existingConfig = getOne(queryWrapper);
             
+            boolean success;
             if (existingConfig != null) {
                 existingConfig.setConfigValue(configValue);
-                return updateById(existingConfig);
+                success = updateById(existingConfig);
             } else {
                 SystemConfig newConfig = new SystemConfig(configKey, configValue, "系统配置");
-                return save(newConfig);
+                success = save(newConfig);
+            }
+            if (success) {
+                Map<String, String> changedValues = new HashMap<>();
+                changedValues.put(configKey, configValue);
+                eventPublisher.publishEvent(new SystemConfigChangedEvent(changedValues));
             }
+            return success;
         } catch (Exception e) {
             return false;
         }
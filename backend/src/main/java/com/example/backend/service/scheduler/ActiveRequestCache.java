@@ -0,0 +1,194 @@
+package com.example.backend.service.scheduler;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.model.entity.ChargingRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 用户活跃请求缓存
+ * 缓存 用户ID -> 活跃请求（WAITING、PRIORITY_WAITING、CHARGING），没有活跃请求的用户也缓存为空，
+ * 状态轮询、SSE连接和各操作入口查询活跃请求时命中缓存即不访问数据库。按最近访问淘汰，最多保存 {@link #MAX_ENTRIES} 个用户。
+ *
+ * 所有修改请求的代码路径（提交、开始、结束、取消、修改、调度分配、队列位置调整、充电桩故障处理）调用 {@link #invalidate}：
+ * 立即删除缓存项，并在事务结束（提交或回滚）后再删除一次。
+ * 用户按ID分到若干分段，每次删除使分段的版本号加1；从数据库加载期间版本号发生变化则不写入缓存，
+ * 避免把事务提交前读到的旧状态写回。事务内读到的可能是未提交或旧快照的数据，也不写入缓存。
+ *
+ * 一致性校验模式下每次命中都再查一次数据库比对，不一致时计数并以数据库为准，用于验证失效路径是否完整。
+ */
+@Component
+public class ActiveRequestCache {
+
+    private static final int MAX_ENTRIES = 10000;
+
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private ChargingRequestMapper chargingRequestMapper;
+
+    // 用户ID -> 活跃请求，按访问顺序排列，只在持有本对象锁时访问
+    private final Map<Long, Optional<ChargingRequest>> entries = new LinkedHashMap<Long, Optional<ChargingRequest>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Optional<ChargingRequest>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // 各分段的版本号，删除缓存项时递增
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    private volatile boolean consistencyCheck;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    /**
+     * 获取用户的活跃请求
+     *
+     * @return 活跃请求的副本，调用方可以修改；没有活跃请求时返回null
+     */
+    public ChargingRequest get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        Optional<ChargingRequest> cached;
+        synchronized (this) {
+            cached = entries.get(userId);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            ChargingRequest request = cached.orElse(null);
+            if (consistencyCheck) {
+                request = verify(userId, request);
+            }
+            return request != null ? StationSnapshot.copyOf(request) : null;
+        }
+
+        misses.incrementAndGet();
+        int stripe = stripeOf(userId);
+        long generation = generations.get(stripe);
+        ChargingRequest loaded = load(userId);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            synchronized (this) {
+                if (generations.get(stripe) == generation) {
+                    entries.put(userId, Optional.ofNullable(loaded != null ? StationSnapshot.copyOf(loaded) : null));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 用户的请求状态发生变化：立即删除缓存项，事务结束后再删除一次
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        TransactionHooks.afterCompletion(() -> evict(userId));
+    }
+
+    /**
+     * 一批请求的状态发生变化
+     */
+    public void invalidate(List<ChargingRequest> requests) {
+        for (ChargingRequest request : requests) {
+            invalidate(request.getUserId());
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    /**
+     * 开启或关闭一致性校验模式
+     */
+    public void setConsistencyCheck(boolean enabled) {
+        this.consistencyCheck = enabled;
+    }
+
+    /**
+     * 缓存统计：命中数、未命中数、缓存用户数，以及一致性校验模式下发现的不一致次数
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        synchronized (this) {
+            metrics.put("size", entries.size());
+        }
+        metrics.put("consistencyCheck", consistencyCheck);
+        metrics.put("mismatches", mismatches.get());
+        return metrics;
+    }
+
+    private synchronized void evict(Long userId) {
+        generations.incrementAndGet(stripeOf(userId));
+        entries.remove(userId);
+    }
+
+    /**
+     * 与数据库比对缓存项，不一致时计数并删除缓存项
+     *
+     * @return 数据库中的活跃请求
+     */
+    private ChargingRequest verify(Long userId, ChargingRequest cached) {
+        ChargingRequest actual = load(userId);
+        if (!sameState(cached, actual)) {
+            mismatches.incrementAndGet();
+            evict(userId);
+        }
+        return actual;
+    }
+
+    private ChargingRequest load(Long userId) {
+        // 查询用户的WAITING、PRIORITY_WAITING或CHARGING状态的请求
+        List<ChargingRequest> activeRequests = chargingRequestMapper.selectList(new LambdaQueryWrapper<ChargingRequest>()
+                .eq(ChargingRequest::getUserId, userId)
+                .in(ChargingRequest::getStatus,
+                    ChargingConstants.STATUS_WAITING,
+                    ChargingConstants.STATUS_PRIORITY_WAITING,
+                    ChargingConstants.STATUS_CHARGING));
+
+        // 一个用户应该只有一个活跃请求
+        return activeRequests.isEmpty() ? null : activeRequests.get(0);
+    }
+
+    private static boolean sameState(ChargingRequest a, ChargingRequest b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.getRequestId(), b.getRequestId())
+                && Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getChargingMode(), b.getChargingMode())
+                && Objects.equals(a.getChargingAmount(), b.getChargingAmount())
+                && Objects.equals(a.getChargingPileId(), b.getChargingPileId())
+                && Objects.equals(a.getQueuePosition(), b.getQueuePosition())
+                && Objects.equals(a.getStartTime(), b.getStartTime());
+    }
+
+    private static int stripeOf(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+}
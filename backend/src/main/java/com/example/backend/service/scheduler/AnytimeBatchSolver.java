@@ -0,0 +1,352 @@
+package com.example.backend.service.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * 限时的单批次分配求解器
+ *
+ * 先用贪心得到初始方案：车辆按充电时间从长到短依次放到使总时长增量最小的充电桩，
+ * 再在充电桩之间做局部搜索（迁移一辆车到有空位的桩、交换两辆不同桩上的车），
+ * 只接受使总时长下降的移动。每个充电桩上的车辆始终按最短充电时间优先排队，
+ * 移动的收益只需重新计算涉及的两个充电桩。
+ *
+ * 截止时间到达时立即停止并返回目前最好的方案，初始方案总是完整的，
+ * 因此即使截止时间已过也能给出可执行的分配。
+ */
+public final class AnytimeBatchSolver {
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * 每评估多少次移动检查一次截止时间
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final double[] waitTimes;
+    private final int[] capacities;
+    private final double[][] chargingTimes;
+    private final int n;
+    private final int m;
+
+    // 每个充电桩上的车辆及其当前总时长
+    private final int[][] members;
+    private final int[] counts;
+    private final double[] pileCosts;
+    private final int[] assignments;
+
+    // 计算充电桩总时长时复用的排序缓冲区
+    private final double[] buffer;
+
+    private final long deadlineNanos;
+    private int evaluations;
+    private boolean budgetExhausted;
+
+    private AnytimeBatchSolver(double[] waitTimes, int[] capacities, double[][] chargingTimes, long deadlineNanos) {
+        this.waitTimes = waitTimes;
+        this.chargingTimes = chargingTimes;
+        this.n = chargingTimes.length;
+        this.m = waitTimes.length;
+        this.deadlineNanos = deadlineNanos;
+
+        this.capacities = new int[m];
+        int maxCapacity = 0;
+        for (int j = 0; j < m; j++) {
+            this.capacities[j] = Math.min(Math.max(capacities[j], 0), n);
+            maxCapacity = Math.max(maxCapacity, this.capacities[j]);
+        }
+        this.members = new int[m][];
+        for (int j = 0; j < m; j++) {
+            members[j] = new int[this.capacities[j]];
+        }
+        this.counts = new int[m];
+        this.pileCosts = new double[m];
+        this.assignments = new int[n];
+        this.buffer = new double[maxCapacity + 1];
+    }
+
+    /**
+     * 在截止时间前求解单批次分配
+     *
+     * @param pileCurrentWaitTimes 每个充电桩的当前等待时间
+     * @param pileCapacities 每个充电桩还能容纳的车辆数
+     * @param vehicleChargingTimes vehicleChargingTimes[i][j] = 车辆i在充电桩j上的充电时间
+     * @param deadlineNanos 截止时间（System.nanoTime()）
+     * @return 求解结果；车位不足时返回null
+     */
+    public static Result solve(double[] pileCurrentWaitTimes, int[] pileCapacities,
+            double[][] vehicleChargingTimes, long deadlineNanos) {
+        int totalSlots = 0;
+        for (int capacity : pileCapacities) {
+            totalSlots += Math.max(capacity, 0);
+        }
+        if (totalSlots < vehicleChargingTimes.length) {
+            return null; // 车位不足，无法完成分配
+        }
+
+        AnytimeBatchSolver solver = new AnytimeBatchSolver(
+                pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes, deadlineNanos);
+        solver.buildGreedy();
+        solver.improve();
+
+        double totalTime = 0;
+        for (double cost : solver.pileCosts) {
+            totalTime += cost;
+        }
+        return new Result(solver.assignments.clone(), totalTime,
+                lowerBound(pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes), solver.budgetExhausted);
+    }
+
+    /**
+     * 总时长下界，取以下两个下界中较大者：
+     * 1. 每辆车都独占一个充电桩时的最短完成时间之和（忽略车辆之间的相互等待）
+     * 2. 按最短充电时间优先排队时，充电桩上第k短的车辆的充电时间被计入 c - k + 1 次，
+     *    总时长 = Σ(已用车位的 W_j) + Σ(系数 × 充电时间)。两部分分别取最小：
+     *    等待时间取n个最小的车位等待时间，充电时间取各车最短充电时间并按排序不等式与最小的n个系数配对
+     */
+    static double lowerBound(double[] pileCurrentWaitTimes, int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int n = vehicleChargingTimes.length;
+        int m = pileCurrentWaitTimes.length;
+
+        double independentBound = 0;
+        double[] shortestTimes = new double[n];
+        for (int i = 0; i < n; i++) {
+            double best = Double.MAX_VALUE;
+            double shortest = Double.MAX_VALUE;
+            for (int j = 0; j < m; j++) {
+                best = Math.min(best, pileCurrentWaitTimes[j] + vehicleChargingTimes[i][j]);
+                shortest = Math.min(shortest, vehicleChargingTimes[i][j]);
+            }
+            independentBound += best;
+            shortestTimes[i] = shortest;
+        }
+
+        // 每个车位对应一个等待时间 W_j 和一个系数（1..cap_j）
+        int slots = 0;
+        for (int capacity : pileCapacities) {
+            slots += Math.min(Math.max(capacity, 0), n);
+        }
+        double[] slotWaitTimes = new double[slots];
+        int[] slotMultipliers = new int[slots];
+        int index = 0;
+        for (int j = 0; j < m; j++) {
+            for (int k = 1; k <= Math.min(Math.max(pileCapacities[j], 0), n); k++) {
+                slotWaitTimes[index] = pileCurrentWaitTimes[j];
+                slotMultipliers[index] = k;
+                index++;
+            }
+        }
+        Arrays.sort(slotWaitTimes);
+        Arrays.sort(slotMultipliers);
+        Arrays.sort(shortestTimes);
+
+        double slotBound = 0;
+        for (int i = 0; i < n; i++) {
+            // 最长的充电时间配最小的系数
+            slotBound += slotWaitTimes[i] + slotMultipliers[i] * shortestTimes[n - 1 - i];
+        }
+        return Math.max(independentBound, slotBound);
+    }
+
+    /**
+     * 贪心初始解：车辆按充电时间从长到短依次放到总时长增量最小的充电桩
+     */
+    private void buildGreedy() {
+        double[] sums = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            for (double time : chargingTimes[i]) {
+                sums[i] += time;
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(sums[b], sums[a]));
+
+        for (int vehicle : order) {
+            int bestPile = -1;
+            double bestCost = 0;
+            double bestDelta = Double.MAX_VALUE;
+            for (int j = 0; j < m; j++) {
+                if (counts[j] >= capacities[j]) {
+                    continue;
+                }
+                double cost = pileCost(j, -1, vehicle);
+                if (cost - pileCosts[j] < bestDelta) {
+                    bestDelta = cost - pileCosts[j];
+                    bestCost = cost;
+                    bestPile = j;
+                }
+            }
+            members[bestPile][counts[bestPile]++] = vehicle;
+            pileCosts[bestPile] = bestCost;
+            assignments[vehicle] = bestPile;
+        }
+    }
+
+    /**
+     * 局部搜索：反复尝试迁移和交换，直到没有改进或截止时间到达
+     */
+    private void improve() {
+        boolean improved = true;
+        while (improved && !budgetExhausted) {
+            improved = false;
+            for (int vehicle = 0; vehicle < n && !budgetExhausted; vehicle++) {
+                if (tryRelocate(vehicle) || trySwap(vehicle)) {
+                    improved = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把车辆迁移到另一个有空位的充电桩，找到第一个改进即执行
+     */
+    private boolean tryRelocate(int vehicle) {
+        int from = assignments[vehicle];
+        double fromCost = pileCost(from, vehicle, -1);
+        for (int to = 0; to < m; to++) {
+            if (to == from || counts[to] >= capacities[to] || deadlineReached()) {
+                continue;
+            }
+            double toCost = pileCost(to, -1, vehicle);
+            if (fromCost + toCost < pileCosts[from] + pileCosts[to] - EPS) {
+                removeMember(from, vehicle);
+                members[to][counts[to]++] = vehicle;
+                assignments[vehicle] = to;
+                pileCosts[from] = fromCost;
+                pileCosts[to] = toCost;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 与另一个充电桩上的车辆交换位置，找到第一个改进即执行
+     */
+    private boolean trySwap(int vehicle) {
+        int from = assignments[vehicle];
+        for (int other = vehicle + 1; other < n; other++) {
+            int to = assignments[other];
+            if (to == from || deadlineReached()) {
+                continue;
+            }
+            double fromCost = pileCost(from, vehicle, other);
+            double toCost = pileCost(to, other, vehicle);
+            if (fromCost + toCost < pileCosts[from] + pileCosts[to] - EPS) {
+                members[from][indexOf(from, vehicle)] = other;
+                members[to][indexOf(to, other)] = vehicle;
+                assignments[vehicle] = to;
+                assignments[other] = from;
+                pileCosts[from] = fromCost;
+                pileCosts[to] = toCost;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算充电桩按最短充电时间优先排队时的总时长
+     *
+     * @param removed 从该桩移除的车辆，-1表示无
+     * @param added 加入该桩的车辆，-1表示无
+     */
+    private double pileCost(int pile, int removed, int added) {
+        int size = 0;
+        for (int k = 0; k < counts[pile]; k++) {
+            if (members[pile][k] != removed) {
+                buffer[size++] = chargingTimes[members[pile][k]][pile];
+            }
+        }
+        if (added >= 0) {
+            buffer[size++] = chargingTimes[added][pile];
+        }
+
+        // 充电桩容量很小，插入排序即可
+        for (int k = 1; k < size; k++) {
+            double value = buffer[k];
+            int position = k - 1;
+            while (position >= 0 && buffer[position] > value) {
+                buffer[position + 1] = buffer[position];
+                position--;
+            }
+            buffer[position + 1] = value;
+        }
+
+        double finishTime = waitTimes[pile];
+        double cost = 0;
+        for (int k = 0; k < size; k++) {
+            finishTime += buffer[k];
+            cost += finishTime;
+        }
+        return cost;
+    }
+
+    private void removeMember(int pile, int vehicle) {
+        int index = indexOf(pile, vehicle);
+        members[pile][index] = members[pile][--counts[pile]];
+    }
+
+    private int indexOf(int pile, int vehicle) {
+        for (int k = 0; k < counts[pile]; k++) {
+            if (members[pile][k] == vehicle) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private boolean deadlineReached() {
+        if (!budgetExhausted && ++evaluations % DEADLINE_CHECK_INTERVAL == 0
+                && System.nanoTime() - deadlineNanos >= 0) {
+            budgetExhausted = true;
+        }
+        return budgetExhausted;
+    }
+
+    /**
+     * 求解结果
+     */
+    public static final class Result {
+        private final int[] assignments;
+        private final double totalTime;
+        private final double lowerBound;
+        private final boolean budgetExhausted;
+
+        Result(int[] assignments, double totalTime, double lowerBound, boolean budgetExhausted) {
+            this.assignments = assignments;
+            this.totalTime = totalTime;
+            this.lowerBound = lowerBound;
+            this.budgetExhausted = budgetExhausted;
+        }
+
+        /**
+         * assignments[i] = 车辆i分配到的充电桩下标
+         */
+        public int[] getAssignments() {
+            return assignments;
+        }
+
+        public double getTotalTime() {
+            return totalTime;
+        }
+
+        public double getLowerBound() {
+            return lowerBound;
+        }
+
+        /**
+         * 搜索是否因截止时间到达而提前停止
+         */
+        public boolean isBudgetExhausted() {
+            return budgetExhausted;
+        }
+
+        /**
+         * 相对下界的差距：(总时长 - 下界) / 下界
+         */
+        public double getGap() {
+            return lowerBound > 0 ? (totalTime - lowerBound) / lowerBound : 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.exception.AssignmentConflictException;
+import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.model.entity.ChargingRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 调度分配结果写入器
+ * 将一轮调度产生的全部分配用一条语句在同一事务中写回数据库，提交后同步更新等候区队列和充电桩负载索引，
+ * 并使被分配用户的活跃请求缓存失效
+ */
+@Component
+public class AssignmentWriter {
+
+    @Autowired
+    private ChargingRequestMapper chargingRequestMapper;
+
+    @Autowired
+    private PileLoadIndex pileLoadIndex;
+
+    @Autowired
+    private WaitingAreaQueue waitingAreaQueue;
+
+    @Autowired
+    private ActiveRequestCache activeRequestCache;
+
+    /**
+     * 原子写入分配结果
+     * 只要有一条请求没有更新成功（被并发取消、修改或已被分配），整批回滚
+     *
+     * @param assignments 已设置充电桩和队列位置的请求
+     * @return 实际更新的行数
+     * @throws AssignmentConflictException 实际更新行数与计划不一致
+     */
+    @Transactional
+    public int write(List<ChargingRequest> assignments) {
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+
+        int applied = chargingRequestMapper.batchAssignToPiles(assignments);
+        if (applied != assignments.size()) {
+            throw new AssignmentConflictException(assignments.size(), applied);
+        }
+        waitingAreaQueue.onLeft(assignments);
+        pileLoadIndex.onAssigned(assignments);
+        activeRequestCache.invalidate(assignments);
+        return applied;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.backend.service.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * 单批次调度的精确动态规划求解器
+ *
+ * 车辆按充电时间从长到短依次加入。由于每个充电桩按最短充电时间优先排队，
+ * 后加入的车辆总排在该桩已有批次车辆的前面：把它放到已有 c 辆批次车辆的充电桩 j 上，
+ * 它自己的完成时间为 W_j + p，同时让这 c 辆车各推迟 p，总时长增加 W_j + (c + 1) * p。
+ * 增量只取决于各充电桩已分到的车辆数，因此状态取为各桩车辆数组成的向量，
+ * 用混合进制编码成数组下标，总时长、父状态等全部存放在按状态下标索引的基本类型数组中。
+ *
+ * 每个状态只从至多 m 个前驱转移过来，每次转移 O(1) 且不分配对象；
+ * 同总时长时按部分makespan择优，为此每个状态保存一行各桩完成时间，仅在状态确定后写入一次。
+ * 状态数为 ∏(cap_j + 1)，与车辆数无关，受 {@link #MAX_TABLE_CELLS} 限制。
+ */
+public final class BatchDPSolver {
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * 完成时间表（状态数 × 充电桩数）的最大单元数，约16MB
+     */
+    private static final int MAX_TABLE_CELLS = 1 << 21;
+
+    private BatchDPSolver() {
+    }
+
+    /**
+     * 判断实例是否适合精确DP：状态表不超过内存预算，且各充电桩上车辆充电时间的相对顺序一致
+     * （充电时间由同一充电量除以各桩功率得到时总是一致的）
+     */
+    public static boolean canSolve(int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int n = vehicleChargingTimes.length;
+        int m = pileCapacities.length;
+        if (!fitsTable(pileCapacities, n)) {
+            return false;
+        }
+
+        int[] order = longestFirstOrder(vehicleChargingTimes);
+        for (int k = 1; k < n; k++) {
+            double[] longer = vehicleChargingTimes[order[k - 1]];
+            double[] shorter = vehicleChargingTimes[order[k]];
+            for (int j = 0; j < m; j++) {
+                if (longer[j] < shorter[j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 状态表是否在内存预算内，逐个充电桩累乘，一旦超出预算立即返回，乘积不会溢出
+     */
+    private static boolean fitsTable(int[] pileCapacities, int n) {
+        int m = pileCapacities.length;
+        if (m == 0 || m > Byte.MAX_VALUE) {
+            return false;
+        }
+
+        long states = 1;
+        for (int capacity : pileCapacities) {
+            states *= Math.min(Math.max(capacity, 0), n) + 1;
+            if (states * m > MAX_TABLE_CELLS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 求解单批次最优分配，调用前应先用 {@link #canSolve} 检查
+     * 充电时间顺序不一致时结果不保证最优；状态表超出内存预算时直接拒绝，不分配任何数组
+     *
+     * @param pileCurrentWaitTimes 每个充电桩的当前等待时间
+     * @param pileCapacities 每个充电桩还能容纳的车辆数
+     * @param vehicleChargingTimes vehicleChargingTimes[i][j] = 车辆i在充电桩j上的充电时间
+     * @return assignments[i] = 车辆i分配到的充电桩下标；车位不足时返回null
+     * @throws IllegalArgumentException 状态表超出内存预算
+     */
+    public static int[] solve(double[] pileCurrentWaitTimes, int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int n = vehicleChargingTimes.length;
+        int m = pileCurrentWaitTimes.length;
+        if (pileCapacities.length != m || !fitsTable(pileCapacities, n)) {
+            throw new IllegalArgumentException("单批次DP状态表超出内存预算，充电桩数: " + m + "，车辆数: " + n);
+        }
+        int[] order = longestFirstOrder(vehicleChargingTimes);
+
+        // 混合进制：第j位为充电桩j已分到的车辆数，取值0..limit[j]
+        int[] limits = new int[m];
+        int[] radix = new int[m];
+        int states = 1;
+        for (int j = 0; j < m; j++) {
+            limits[j] = Math.min(Math.max(pileCapacities[j], 0), n);
+            radix[j] = states;
+            states *= limits[j] + 1;
+        }
+
+        double[] totalTimes = new double[states];
+        double[] makespans = new double[states];
+        double[] finishTimes = new double[states * m];
+        byte[] lastPile = new byte[states];
+        int[] vehicleCounts = new int[states];
+        Arrays.fill(totalTimes, Double.MAX_VALUE);
+
+        totalTimes[0] = 0;
+        System.arraycopy(pileCurrentWaitTimes, 0, finishTimes, 0, m);
+        lastPile[0] = -1;
+
+        int[] digits = new int[m];
+        int vehicleCount = 0;
+        int bestState = -1;
+
+        // 前驱状态的下标总是更小，按下标递增顺序处理即为拓扑序
+        for (int state = 1; state < states; state++) {
+            // 混合进制加一，同时维护各位之和（已分配车辆数）
+            for (int j = 0; j < m; j++) {
+                if (digits[j] < limits[j]) {
+                    digits[j]++;
+                    vehicleCount++;
+                    break;
+                }
+                vehicleCount -= digits[j];
+                digits[j] = 0;
+            }
+            vehicleCounts[state] = vehicleCount;
+            if (vehicleCount > n) {
+                continue;
+            }
+
+            // 本步加入的车辆：按从长到短顺序的第 vehicleCount 辆
+            double[] chargingTimes = vehicleChargingTimes[order[vehicleCount - 1]];
+            double bestTotal = Double.MAX_VALUE;
+            double bestMakespan = Double.MAX_VALUE;
+            int bestPile = -1;
+
+            for (int j = 0; j < m; j++) {
+                if (digits[j] == 0) {
+                    continue;
+                }
+                int previous = state - radix[j];
+                if (totalTimes[previous] == Double.MAX_VALUE) {
+                    continue;
+                }
+                double p = chargingTimes[j];
+                double total = totalTimes[previous] + pileCurrentWaitTimes[j] + digits[j] * p;
+                double makespan = Math.max(makespans[previous], finishTimes[previous * m + j] + p);
+                if (total < bestTotal - EPS || (Math.abs(total - bestTotal) <= EPS && makespan < bestMakespan)) {
+                    bestTotal = total;
+                    bestMakespan = makespan;
+                    bestPile = j;
+                }
+            }
+
+            if (bestPile < 0) {
+                continue;
+            }
+            int previous = state - radix[bestPile];
+            totalTimes[state] = bestTotal;
+            makespans[state] = bestMakespan;
+            lastPile[state] = (byte) bestPile;
+            System.arraycopy(finishTimes, previous * m, finishTimes, state * m, m);
+            finishTimes[state * m + bestPile] += chargingTimes[bestPile];
+
+            if (vehicleCount == n && (bestState < 0 || bestTotal < totalTimes[bestState] - EPS
+                    || (Math.abs(bestTotal - totalTimes[bestState]) <= EPS && bestMakespan < makespans[bestState]))) {
+                bestState = state;
+            }
+        }
+
+        if (n == 0) {
+            return new int[0];
+        }
+        if (bestState < 0) {
+            return null; // 车位不足，无法完成分配
+        }
+
+        // 沿父状态回溯，每一步对应按从长到短顺序的一辆车
+        int[] assignments = new int[n];
+        for (int state = bestState; state != 0; ) {
+            int pile = lastPile[state];
+            assignments[order[vehicleCounts[state] - 1]] = pile;
+            state -= radix[pile];
+        }
+        return assignments;
+    }
+
+    /**
+     * 按各充电桩充电时间之和从长到短排序的车辆下标
+     */
+    private static int[] longestFirstOrder(double[][] vehicleChargingTimes) {
+        int n = vehicleChargingTimes.length;
+        double[] sums = new double[n];
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            for (double time : vehicleChargingTimes[i]) {
+                sums[i] += time;
+            }
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> Double.compare(sums[b], sums[a]));
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+}
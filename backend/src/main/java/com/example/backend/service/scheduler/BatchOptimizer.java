@@ -0,0 +1,279 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批次调度求解
+ * 单批次和全批次调度策略共用：小批次用精确DP，大批次用槽位指派精确求解，
+ * 限时模式下大批次改用限时局部搜索
+ */
+public final class BatchOptimizer {
+
+    /**
+     * 使用精确DP求解的最大批次规模，超过后改用槽位指派求解器
+     * DP状态为各充电桩的车辆数向量，状态数还受 {@link BatchDPSolver#canSolve} 的内存预算限制
+     */
+    private static final int SINGLE_BATCH_DP_MAX_VEHICLES = 24;
+
+    private BatchOptimizer() {
+    }
+
+    /**
+     * 将一批车辆一次性分配到给定的充电桩，目标是最小化总时长
+     * 分配结果直接写入快照，每个充电桩上的车辆按充电时间从短到长入队
+     *
+     * @param solverMetrics 限时求解的统计，由调用的调度策略持有
+     */
+    public static void assignBatch(StationSnapshot snapshot, List<ChargingRequest> batchRequests,
+            List<ChargingPile> availablePiles, SolverMetrics solverMetrics) {
+        int n = batchRequests.size(); // 车辆数量
+        int m = availablePiles.size(); // 充电桩数量
+
+        // 预计算每个充电桩的当前等待时间和容量
+        double[] pileCurrentWaitTimes = new double[m];
+        int[] pileCapacities = new int[m];
+
+        for (int i = 0; i < m; i++) {
+            pileCurrentWaitTimes[i] = SchedulingSupport.calculateWaitingTime(snapshot, availablePiles.get(i));
+            pileCapacities[i] = snapshot.getMaxCapacityForPile(availablePiles.get(i));
+        }
+
+        // 预计算车辆充电时间矩阵
+        double[][] vehicleChargingTimes = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                vehicleChargingTimes[i][j] = SchedulingSupport.calculateChargingTime(
+                    batchRequests.get(i).getChargingAmount(),
+                    availablePiles.get(j).getChargingPower()
+                );
+            }
+        }
+
+        // 小批次使用动态规划求解；大批次在限时模式下做限时局部搜索，否则使用槽位指派（最小费用流）精确求解
+        SingleBatchOptimalAssignment optimalAssignment;
+        if (!canSolveByDP(n, pileCapacities, vehicleChargingTimes) && ChargingConstants.BATCH_SOLVER_MODE_ANYTIME.equals(
+                snapshot.getConfigValue(ChargingConstants.CONFIG_BATCH_SOLVER_MODE))) {
+            optimalAssignment = solveSingleBatchWithinBudget(pileCurrentWaitTimes, pileCapacities,
+                vehicleChargingTimes, snapshot.getPlanningDeadline(), solverMetrics);
+        } else {
+            optimalAssignment = solveSingleBatchExact(n, m, pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+        }
+
+        // 执行最优分配
+        if (optimalAssignment != null && optimalAssignment.isValid()) {
+            // 按充电桩分组，并按充电时间排序分配
+            Map<Integer, List<Integer>> pileToVehicles = new HashMap<>();
+
+            // 收集每个充电桩分配到的车辆
+            for (int i = 0; i < n; i++) {
+                if (optimalAssignment.assignments[i] >= 0) {
+                    int pileIndex = optimalAssignment.assignments[i];
+                    pileToVehicles.computeIfAbsent(pileIndex, k -> new ArrayList<>()).add(i);
+                }
+            }
+
+            // 对每个充电桩的车辆按充电时间排序后分配
+            for (Map.Entry<Integer, List<Integer>> entry : pileToVehicles.entrySet()) {
+                int pileIndex = entry.getKey();
+                List<Integer> vehicles = entry.getValue();
+                ChargingPile pile = availablePiles.get(pileIndex);
+
+                // 按充电时间从短到长排序
+                vehicles.sort((v1, v2) -> Double.compare(
+                    vehicleChargingTimes[v1][pileIndex], vehicleChargingTimes[v2][pileIndex]));
+
+                // 按排序后的顺序分配到充电桩
+                for (int vehicleIndex : vehicles) {
+                    snapshot.assign(batchRequests.get(vehicleIndex), pile);
+                }
+            }
+        }
+    }
+
+    /**
+     * 批次规模和DP状态表都在限制内时才用精确DP
+     */
+    private static boolean canSolveByDP(int n, int[] pileCapacities, double[][] vehicleChargingTimes) {
+        return n <= SINGLE_BATCH_DP_MAX_VEHICLES && BatchDPSolver.canSolve(pileCapacities, vehicleChargingTimes);
+    }
+
+    /**
+     * 精确求解单批次最优分配：DP可解时用DP，否则用槽位指派
+     * 包内可见，供基准测试按与调度相同的路径调用
+     */
+    static SingleBatchOptimalAssignment solveSingleBatchExact(int n, int m,
+            double[] pileCurrentWaitTimes, int[] pileCapacities, double[][] vehicleChargingTimes) {
+        if (canSolveByDP(n, pileCapacities, vehicleChargingTimes)) {
+            return solveSingleBatchDP(n, m, pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+        }
+        return solveSingleBatchAssignment(pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+    }
+
+    /**
+     * 使用动态规划求解单批次最优分配
+     * 状态定义：各充电桩已分配车辆数组成的向量，车辆按充电时间从长到短依次加入，详见 {@link BatchDPSolver}
+     */
+    private static SingleBatchOptimalAssignment solveSingleBatchDP(int n, int m, 
+            double[] pileCurrentWaitTimes, int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int[] assignments = BatchDPSolver.solve(pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+        if (assignments == null) {
+            return null; // 车位不足，无法完成分配
+        }
+
+        double totalTime = calculateTotalWaitingAndChargingTime(assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+        double makespan = calculateMakespan(assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+        return new SingleBatchOptimalAssignment(assignments, totalTime, makespan);
+    }
+
+    /**
+     * 使用槽位指派求解单批次最优分配
+     * 以最小费用指派精确求解总时长最优，并在总时长不变的前提下降低makespan
+     */
+    private static SingleBatchOptimalAssignment solveSingleBatchAssignment(double[] pileCurrentWaitTimes,
+            int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int[] assignments = SlotAssignmentSolver.solve(pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+        if (assignments == null) {
+            return null; // 车位不足，无法完成分配
+        }
+
+        double totalTime = calculateTotalWaitingAndChargingTime(assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+        double makespan = calculateMakespan(assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+        return new SingleBatchOptimalAssignment(assignments, totalTime, makespan);
+    }
+
+    /**
+     * 在本轮求解截止时间前求解单批次分配
+     * 从贪心方案出发做局部搜索，截止时间到达时返回目前最好的方案，并记录相对下界的差距和是否超出预算
+     */
+    private static SingleBatchOptimalAssignment solveSingleBatchWithinBudget(double[] pileCurrentWaitTimes,
+            int[] pileCapacities, double[][] vehicleChargingTimes, long deadlineNanos, SolverMetrics solverMetrics) {
+        long startNanos = System.nanoTime();
+        AnytimeBatchSolver.Result result = AnytimeBatchSolver.solve(
+            pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes, deadlineNanos);
+        if (result == null) {
+            return null; // 车位不足，无法完成分配
+        }
+        solverMetrics.record(result, System.nanoTime() - startNanos);
+
+        int[] assignments = result.getAssignments();
+        double makespan = calculateMakespan(assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+        return new SingleBatchOptimalAssignment(assignments, result.getTotalTime(), makespan);
+    }
+
+    /**
+     * 计算所有车辆的累计等待时间+累计充电时间总和
+     * 这是单批次调度的正确优化目标
+     */
+    static double calculateTotalWaitingAndChargingTime(int[] vehicleAssignments, 
+            double[] pileCurrentWaitTimes, double[][] vehicleChargingTimes) {
+
+        int n = vehicleAssignments.length;
+        int m = pileCurrentWaitTimes.length;
+
+        // 计算每个充电桩的服务队列
+        double[] pileServiceTimes = pileCurrentWaitTimes.clone();
+        double totalWaitingAndChargingTime = 0;
+
+        // 按充电桩分组并计算每辆车的等待时间和充电时间
+        for (int pile = 0; pile < m; pile++) {
+            // 收集分配到该充电桩的车辆
+            List<Integer> vehiclesOnPile = new ArrayList<>();
+            for (int vehicle = 0; vehicle < n; vehicle++) {
+                if (vehicleAssignments[vehicle] == pile) {
+                    vehiclesOnPile.add(vehicle);
+                }
+            }
+
+            // 按充电时间从短到长排序（最短处理时间优先），以最小化总等待时间
+            final int currentPile = pile;
+            vehiclesOnPile.sort((v1, v2) -> Double.compare(
+                vehicleChargingTimes[v1][currentPile], vehicleChargingTimes[v2][currentPile]));
+
+            // 计算该充电桩上每辆车的等待时间和充电时间
+            for (int vehicle : vehiclesOnPile) {
+                // 该车的等待时间 = 轮到该车时充电桩的服务时间
+                double waitingTime = pileServiceTimes[pile];
+
+                // 该车的充电时间
+                double chargingTime = vehicleChargingTimes[vehicle][pile];
+
+                // 累加等待时间和充电时间
+                totalWaitingAndChargingTime += waitingTime + chargingTime;
+
+                // 更新充电桩的服务时间（为下一辆车准备）
+                pileServiceTimes[pile] += chargingTime;
+            }
+        }
+
+        return totalWaitingAndChargingTime;
+    }
+
+    /**
+     * 计算makespan
+     */
+    static double calculateMakespan(int[] vehicleAssignments, 
+            double[] pileCurrentWaitTimes, double[][] vehicleChargingTimes) {
+
+        int n = vehicleAssignments.length;
+        int m = pileCurrentWaitTimes.length;
+
+        // 计算每个充电桩的完成时间
+        double[] pileFinishTimes = pileCurrentWaitTimes.clone();
+
+        // 按充电桩分组并计算完成时间
+        for (int pile = 0; pile < m; pile++) {
+            // 收集分配到该充电桩的车辆
+            List<Integer> vehiclesOnPile = new ArrayList<>();
+            for (int vehicle = 0; vehicle < n; vehicle++) {
+                if (vehicleAssignments[vehicle] == pile) {
+                    vehiclesOnPile.add(vehicle);
+                }
+            }
+
+            // 按充电时间从短到长排序（最短处理时间优先）
+            final int currentPile = pile;
+            vehiclesOnPile.sort((v1, v2) -> Double.compare(
+                vehicleChargingTimes[v1][currentPile], vehicleChargingTimes[v2][currentPile]));
+
+            // 计算该充电桩的最终完成时间
+            for (int vehicle : vehiclesOnPile) {
+                double chargingTime = vehicleChargingTimes[vehicle][pile];
+                pileFinishTimes[pile] += chargingTime;
+            }
+        }
+
+        // makespan是所有充电桩完成时间的最大值
+        double makespan = 0;
+        for (double finishTime : pileFinishTimes) {
+            if (finishTime > makespan) {
+                makespan = finishTime;
+            }
+        }
+
+        return makespan;
+    }
+
+    /**
+     * 单批次最优分配结果类
+     */
+    static class SingleBatchOptimalAssignment {
+        int[] assignments;    // 每个车辆对应的充电桩索引
+        double totalTime;     // 总时长
+
+        public SingleBatchOptimalAssignment(int[] assignments, double totalTime, double makespan) {
+            this.assignments = assignments.clone();
+            this.totalTime = totalTime;
+        }
+
+        public boolean isValid() {
+            return assignments != null && totalTime < Double.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 预计开始/结束充电时间推演
+ * 从内存中的充电桩负载索引和等候区队列出发，按时间向前推演各充电桩队列的执行过程，
+ * 得到每个请求预计开始充电和充电结束的时间。
+ *
+ * 推演规则与调度一致：
+ * - 充电桩队列中的车辆依次充电，正在充电的车辆按剩余时间计算，未开始的队首车辆视为立即开始；
+ * - 每当有车辆充电结束，等候区车辆按叫号顺序分配到完成充电总时长最短且有空位的同类型充电桩；
+ * - 等候区中有优先等待请求时只分配优先等待请求，普通请求暂停分配。
+ * 批量调度策略逐个事件重放求解代价过高，推演统一按原始策略的选桩规则近似。
+ *
+ * 推演结果按负载索引和等候区的版本号缓存，状态变化后的第一次查询重新推演，
+ * 同一状态下的所有查询共用一份结果；结果超过一分钟也会重新推演，修正实际充电进度带来的偏差。
+ */
+@Component
+public class EtaEngine {
+
+    // 推演结果的最长有效时间（秒）
+    private static final long MAX_PROJECTION_AGE_SECONDS = 60;
+
+    @Autowired
+    private PileLoadIndex pileLoadIndex;
+
+    @Autowired
+    private WaitingAreaQueue waitingAreaQueue;
+
+    // 最近一次推演的结果
+    private volatile Projection projection;
+
+    /**
+     * 获取指定请求的预计开始和结束充电时间
+     *
+     * @param requestId 充电请求ID
+     * @return 推演结果；请求不在等候区和充电区，或没有可用的同类型充电桩时返回null
+     */
+    public Eta getEta(String requestId) {
+        return requestId != null ? currentProjection().etas.get(requestId) : null;
+    }
+
+    /**
+     * 取当前状态的推演结果，版本号变化或结果过期时重新推演
+     */
+    private Projection currentProjection() {
+        LocalDateTime now = LocalDateTime.now();
+        Projection current = projection;
+        if (current != null && current.isCurrent(pileLoadIndex.getVersion(), waitingAreaQueue.getVersion(), now)) {
+            return current;
+        }
+        synchronized (this) {
+            current = projection;
+            // 先取版本号再读状态，推演期间状态发生变化时下次查询会重新推演
+            long pileVersion = pileLoadIndex.getVersion();
+            long waitingVersion = waitingAreaQueue.getVersion();
+            if (current == null || !current.isCurrent(pileVersion, waitingVersion, now)) {
+                current = project(pileLoadIndex.view(now), waitingAreaQueue.getRequests(), waitingVersion, now);
+                projection = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 推演各充电桩队列，时间以距now的分钟数表示
+     *
+     * @param loads 充电桩负载副本
+     * @param waitingRequests 按叫号顺序排列的等候区请求
+     */
+    static Projection project(PileLoadIndex.LoadView loads, List<ChargingRequest> waitingRequests,
+            long waitingVersion, LocalDateTime now) {
+        Map<String, Eta> etas = new HashMap<>();
+        List<SimulatedPile> piles = new ArrayList<>();
+        // 充电结束事件：{结束时间, 充电桩下标}，按结束时间排序，同时结束时按充电桩ID顺序
+        PriorityQueue<long[]> completions = new PriorityQueue<>((a, b) ->
+                a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        // 充电区：正在充电的车辆和队列中的车辆依次充电
+        for (PileLoadIndex.PileView view : loads.piles) {
+            SimulatedPile pile = new SimulatedPile(view);
+            int index = piles.size();
+            piles.add(pile);
+            if (view.chargingRequest != null
+                    && ChargingConstants.PILE_STATUS_CHARGING.equals(view.pile.getStatus())) {
+                pile.freeAt = view.remainingMinutes;
+                pile.occupied++;
+                completions.add(new long[] {pile.freeAt, index});
+                LocalDateTime startTime = view.chargingRequest.getStartTime() != null
+                        ? view.chargingRequest.getStartTime() : now;
+                etas.put(view.chargingRequest.getRequestId(),
+                        new Eta(view.pile.getId(), startTime, now.plusMinutes(pile.freeAt)));
+            }
+            for (int i = 0; i < view.queuedRequestIds.size(); i++) {
+                long start = pile.freeAt;
+                pile.freeAt += view.queuedMinutes.get(i);
+                pile.occupied++;
+                completions.add(new long[] {pile.freeAt, index});
+                etas.put(view.queuedRequestIds.get(i),
+                        new Eta(view.pile.getId(), now.plusMinutes(start), now.plusMinutes(pile.freeAt)));
+            }
+        }
+
+        // 等候区：初始时刻和每个充电结束时刻按调度规则分配
+        Deque<ChargingRequest> waiting = new ArrayDeque<>(waitingRequests);
+        long time = 0;
+        while (true) {
+            dispatch(waiting, piles, completions, loads.maxQueueLength, time, etas, now);
+            if (waiting.isEmpty() || completions.isEmpty()) {
+                break;
+            }
+            // 推进到下一个充电结束时刻，同一时刻结束的车辆一起释放位置
+            time = completions.peek()[0];
+            while (!completions.isEmpty() && completions.peek()[0] == time) {
+                piles.get((int) completions.poll()[1]).occupied--;
+            }
+        }
+        return new Projection(loads.version, waitingVersion, now, etas);
+    }
+
+    /**
+     * 在指定时刻按叫号顺序为等候区车辆选择充电桩，与原始策略的选桩规则一致
+     */
+    private static void dispatch(Deque<ChargingRequest> waiting, List<SimulatedPile> piles,
+            PriorityQueue<long[]> completions, int maxQueueLength, long time,
+            Map<String, Eta> etas, LocalDateTime now) {
+        if (waiting.isEmpty()) {
+            return;
+        }
+        // 有优先等待请求时普通请求暂停分配
+        boolean priorityOnly = ChargingConstants.STATUS_PRIORITY_WAITING.equals(waiting.peekFirst().getStatus());
+        Iterator<ChargingRequest> iterator = waiting.iterator();
+        while (iterator.hasNext()) {
+            ChargingRequest request = iterator.next();
+            if (priorityOnly && !ChargingConstants.STATUS_PRIORITY_WAITING.equals(request.getStatus())) {
+                break;
+            }
+            String pileType = StationSnapshot.pileTypeOf(request.getChargingMode());
+            int optimal = -1;
+            long minTotalTime = Long.MAX_VALUE;
+            for (int i = 0; i < piles.size(); i++) {
+                SimulatedPile pile = piles.get(i);
+                if (!pile.schedulable || !pile.pileType.equals(pileType) || pile.occupied >= maxQueueLength) {
+                    continue;
+                }
+                long totalTime = Math.max(pile.freeAt - time, 0)
+                        + SchedulingSupport.calculateChargingTime(request.getChargingAmount(), pile.chargingPower);
+                if (totalTime < minTotalTime) {
+                    minTotalTime = totalTime;
+                    optimal = i;
+                }
+            }
+            if (optimal < 0) {
+                continue; // 同类型充电桩都已满，等下一个充电结束时刻
+            }
+
+            SimulatedPile pile = piles.get(optimal);
+            long start = Math.max(pile.freeAt, time);
+            pile.freeAt = start + SchedulingSupport.calculateChargingTime(request.getChargingAmount(), pile.chargingPower);
+            pile.occupied++;
+            completions.add(new long[] {pile.freeAt, optimal});
+            etas.put(request.getRequestId(),
+                    new Eta(pile.pileId, now.plusMinutes(start), now.plusMinutes(pile.freeAt)));
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 推演过程中的充电桩状态
+     */
+    private static class SimulatedPile {
+        private final Integer pileId;
+        private final String pileType;
+        private final Double chargingPower;
+        private final boolean schedulable;
+        // 充电桩上的车辆数（含正在充电的车辆）
+        private int occupied;
+        // 充电桩上最后一辆车充电结束的时刻
+        private long freeAt;
+
+        SimulatedPile(PileLoadIndex.PileView view) {
+            this.pileId = view.pile.getId();
+            this.pileType = view.pile.getPileType();
+            this.chargingPower = view.pile.getChargingPower();
+            this.schedulable = ChargingConstants.PILE_STATUS_AVAILABLE.equals(view.pile.getStatus())
+                    || ChargingConstants.PILE_STATUS_CHARGING.equals(view.pile.getStatus());
+        }
+    }
+
+    /**
+     * 一次推演的结果，不可变
+     */
+    static final class Projection {
+        private final long pileVersion;
+        private final long waitingVersion;
+        private final LocalDateTime computedAt;
+        private final Map<String, Eta> etas;
+
+        Projection(long pileVersion, long waitingVersion, LocalDateTime computedAt, Map<String, Eta> etas) {
+            this.pileVersion = pileVersion;
+            this.waitingVersion = waitingVersion;
+            this.computedAt = computedAt;
+            this.etas = etas;
+        }
+
+        boolean isCurrent(long pileVersion, long waitingVersion, LocalDateTime now) {
+            return this.pileVersion == pileVersion && this.waitingVersion == waitingVersion
+                    && !computedAt.plusSeconds(MAX_PROJECTION_AGE_SECONDS).isBefore(now);
+        }
+    }
+
+    /**
+     * 单个请求的推演结果
+     */
+    public static final class Eta {
+        private final Integer chargingPileId;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        Eta(Integer chargingPileId, LocalDateTime startTime, LocalDateTime endTime) {
+            this.chargingPileId = chargingPileId;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        /**
+         * 预计充电的充电桩ID（等候区请求为推演选出的充电桩）
+         */
+        public Integer getChargingPileId() {
+            return chargingPileId;
+        }
+
+        public LocalDateTime getStartTime() {
+            return startTime;
+        }
+
+        public LocalDateTime getEndTime() {
+            return endTime;
+        }
+
+        /**
+         * 距预计开始充电还有多少分钟，向上取整，已到开始时间时为0
+         */
+        public int getWaitMinutes(LocalDateTime now) {
+            long seconds = ChronoUnit.SECONDS.between(now, startTime);
+            return seconds > 0 ? (int) ((seconds + 59) / 60) : 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 全批次最优调度策略
+ * 当等候区车辆数不少于充电区全部车位数量时，且充电区没有车辆时，一次性叫号进入充电区，
+ * 调度策略满足所有车辆完成充电总时长最短。忽略充电桩类型，只能在整个快照上执行
+ */
+@Component
+public class FullBatchOptimalScheduleStrategy implements ScheduleStrategy {
+
+    private final SolverMetrics solverMetrics = new SolverMetrics();
+
+    @Override
+    public String getName() {
+        return ChargingConstants.SCHEDULE_STRATEGY_FULL_BATCH_OPTIMAL;
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        return false;
+    }
+
+    @Override
+    public List<ChargingRequest> plan(StationSnapshot snapshot) {
+        // 检查充电区是否有车辆（正在充电或等待），如果有则不进行调度
+        if (snapshot.hasVehiclesInChargingArea()) {
+            return snapshot.getAssignments();
+        }
+
+        // 获取所有可用充电桩（忽略类型限制）
+        List<ChargingPile> allAvailablePiles = snapshot.getAllAvailablePiles();
+
+        // 充电区全部车位数量 = 可用充电桩数量 × 充电桩队列长度
+        int totalChargingSlots = allAvailablePiles.size() * snapshot.getMaxQueueLength();
+        if (totalChargingSlots <= 0) {
+            return snapshot.getAssignments(); // 没有可用充电桩
+        }
+
+        // 只有当等候区车辆数不少于充电区全部车位数量时才触发批量调度
+        List<ChargingRequest> waitingRequests = snapshot.getWaitingRequests();
+        if (waitingRequests.size() < totalChargingSlots) {
+            return snapshot.getAssignments();
+        }
+
+        // 取前N辆车进行批量调度（N为充电区车位数量），只使用有剩余容量的充电桩
+        List<ChargingRequest> batchRequests = waitingRequests.subList(0, totalChargingSlots);
+        List<ChargingPile> availablePiles = allAvailablePiles.stream()
+                .filter(snapshot::hasAvailableCapacity)
+                .collect(Collectors.toList());
+        if (!availablePiles.isEmpty()) {
+            BatchOptimizer.assignBatch(snapshot, batchRequests, availablePiles, solverMetrics);
+        }
+        return snapshot.getAssignments();
+    }
+
+    @Override
+    public Map<String, Object> getSolverMetrics() {
+        return solverMetrics.toMap();
+    }
+}
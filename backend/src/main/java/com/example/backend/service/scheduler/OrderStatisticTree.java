@@ -0,0 +1,153 @@
+package com.example.backend.service.scheduler;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 顺序统计树（带子树大小的Treap）
+ * 插入、删除、查询排名都是期望O(log n)，用于计算"前面还有多少辆车"。
+ * 元素按比较器去重，比较结果为0的元素视为同一个。非线程安全，由调用方加锁。
+ */
+final class OrderStatisticTree<E> {
+
+    private final Comparator<? super E> comparator;
+    private Node<E> root;
+
+    OrderStatisticTree(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * 插入元素，已存在时不重复插入
+     */
+    void add(E element) {
+        if (contains(element)) {
+            return;
+        }
+        Node<E>[] parts = split(root, element);
+        root = merge(merge(parts[0], new Node<>(element)), parts[1]);
+    }
+
+    /**
+     * 删除元素，不存在时忽略
+     */
+    void remove(E element) {
+        root = remove(root, element);
+    }
+
+    /**
+     * 严格小于指定元素的元素个数，指定元素不必在树中
+     */
+    int rank(E element) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            if (comparator.compare(node.element, element) < 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    private boolean contains(E element) {
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(element, node.element);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    private Node<E> remove(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(element, node.element);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, element);
+        } else {
+            node.right = remove(node.right, element);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * 拆分为 小于element 和 大于等于element 两棵树
+     */
+    @SuppressWarnings("unchecked")
+    private Node<E>[] split(Node<E> node, E element) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (comparator.compare(node.element, element) < 0) {
+            Node<E>[] parts = split(node.right, element);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+        Node<E>[] parts = split(node.left, element);
+        node.left = parts[1];
+        node.update();
+        parts[1] = node;
+        return parts;
+    }
+
+    /**
+     * 合并两棵树，left中的元素都小于right中的元素
+     */
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static final class Node<E> {
+        private final E element;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node<E> left;
+        private Node<E> right;
+        private int size = 1;
+
+        Node(E element) {
+            this.element = element;
+        }
+
+        void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 原始调度策略
+ * 等候区车辆按排队顺序逐个分配到完成充电总时长最短的充电桩
+ */
+@Component
+public class OriginalScheduleStrategy implements ScheduleStrategy {
+
+    @Override
+    public String getName() {
+        return ChargingConstants.SCHEDULE_STRATEGY_ORIGINAL;
+    }
+
+    @Override
+    public List<ChargingRequest> plan(StationSnapshot snapshot) {
+        for (ChargingRequest request : snapshot.getWaitingRequests()) {
+            ChargingPile optimalPile = SchedulingSupport.findOptimalPile(snapshot, request);
+            if (optimalPile != null) {
+                snapshot.assign(request, optimalPile);
+            }
+        }
+        return snapshot.getAssignments();
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.backend.service.scheduler;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.mapper.ChargingPileMapper;
+import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.service.SystemConfigService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 充电桩负载索引
+ * 在内存中维护每个充电桩正在充电的请求和队列中剩余的充电时长，
+ * 查询某个充电桩的等待时间或为请求选择最优充电桩时只扫描内存，不访问数据库。
+ *
+ * 分配、开始充电、结束充电、取消和充电桩故障等操作在事务提交后增量更新索引，事务回滚时不更新。
+ * 首次查询时从数据库加载一次；所有更新都按请求ID幂等，与加载并发时不会重复计入。
+ * 每分钟从数据库重新加载一次，校正遗漏的增量更新或在这些代码路径之外修改数据造成的偏差。
+ */
+@Component
+public class PileLoadIndex {
+
+    @Autowired
+    private ChargingPileMapper chargingPileMapper;
+
+    @Autowired
+    private ChargingRequestMapper chargingRequestMapper;
+
+    @Autowired
+    private SystemConfigService systemConfigService;
+
+    // 充电桩ID -> 负载，按ID排序，与数据库查询充电桩的默认顺序一致
+    private final Map<Integer, PileLoad> loads = new TreeMap<>();
+
+    private boolean loaded;
+
+    private int maxQueueLength = 2;
+
+    // 每次加载或更新后加1，供基于负载的派生数据判断是否需要重新计算
+    private long version;
+
+    /**
+     * 指定充电桩的等待时间 = 正在充电车辆的剩余时间 + 队列中车辆的充电时间
+     * 与 {@link SchedulingSupport#calculateWaitingTime} 口径一致
+     */
+    public synchronized int getWaitingTime(Integer pileId) {
+        ensureLoaded();
+        PileLoad load = loads.get(pileId);
+        return load != null ? load.waitingTime(LocalDateTime.now()) : 0;
+    }
+
+    /**
+     * 在对应充电模式的充电桩中找到完成充电总时长最短且有空位的充电桩
+     * 与 {@link SchedulingSupport#findOptimalPile} 口径一致
+     *
+     * @return 最优充电桩的副本；没有可用充电桩或队列都已满时返回null
+     */
+    public synchronized ChargingPile findOptimalPile(String chargingMode, Double chargingAmount) {
+        ensureLoaded();
+        String pileType = StationSnapshot.pileTypeOf(chargingMode);
+        LocalDateTime now = LocalDateTime.now();
+
+        PileLoad optimal = null;
+        int minTotalTime = Integer.MAX_VALUE;
+        for (PileLoad load : loads.values()) {
+            if (!load.isSchedulable() || !load.pile.getPileType().equals(pileType)
+                    || !load.hasAvailableCapacity(maxQueueLength)) {
+                continue;
+            }
+            int totalTime = load.waitingTime(now)
+                    + SchedulingSupport.calculateChargingTime(chargingAmount, load.pile.getChargingPower());
+            if (totalTime < minTotalTime) {
+                minTotalTime = totalTime;
+                optimal = load;
+            }
+        }
+        return optimal != null ? copyOf(optimal.pile) : null;
+    }
+
+    /**
+     * 索引的版本号，负载或队列长度配置每次变化后递增
+     */
+    public synchronized long getVersion() {
+        ensureLoaded();
+        return version;
+    }
+
+    /**
+     * 当前全部充电桩负载的只读副本，充电桩按ID排序，队列按进入顺序
+     */
+    synchronized LoadView view(LocalDateTime now) {
+        ensureLoaded();
+        List<PileView> piles = new ArrayList<>(loads.size());
+        for (PileLoad load : loads.values()) {
+            int remaining = load.waitingTime(now) - load.queueWork;
+            ChargingRequest charging = load.chargingRequest != null
+                    ? StationSnapshot.copyOf(load.chargingRequest) : null;
+            piles.add(new PileView(copyOf(load.pile), charging, remaining,
+                    new ArrayList<>(load.queuedMinutes.keySet()), new ArrayList<>(load.queuedMinutes.values())));
+        }
+        return new LoadView(version, maxQueueLength, piles);
+    }
+
+    /**
+     * 调度分配写回后，请求进入充电桩队列末尾
+     */
+    public void onAssigned(Collection<ChargingRequest> assignments) {
+        afterCommit(() -> {
+            for (ChargingRequest request : assignments) {
+                PileLoad load = loads.get(request.getChargingPileId());
+                if (load != null) {
+                    removeFromAll(request.getRequestId());
+                    load.enqueue(request);
+                }
+            }
+        });
+    }
+
+    /**
+     * 队首请求开始充电，充电桩变为充电中
+     */
+    public void onChargingStarted(ChargingRequest request) {
+        ChargingRequest charging = StationSnapshot.copyOf(request);
+        afterCommit(() -> {
+            PileLoad load = loads.get(charging.getChargingPileId());
+            if (load != null) {
+                removeFromAll(charging.getRequestId());
+                load.chargingRequest = charging;
+                load.pile.setStatus(ChargingConstants.PILE_STATUS_CHARGING);
+            }
+        });
+    }
+
+    /**
+     * 请求离开充电区：结束充电、取消、故障时被移出或被放回等候区
+     * 正在充电的请求离开后充电桩恢复为可用（充电桩已故障的除外）
+     */
+    public void onLeftPile(ChargingRequest request) {
+        String requestId = request.getRequestId();
+        afterCommit(() -> removeFromAll(requestId));
+    }
+
+    /**
+     * 充电桩开启、关闭、故障或恢复
+     * 只更新状态，不可用的充电桩不参与选择；队列中的车辆由故障处理逐个移出
+     */
+    public void onPileStatusChanged(ChargingPile pile) {
+        Integer pileId = pile.getId();
+        String status = pile.getStatus();
+        afterCommit(() -> {
+            PileLoad load = loads.get(pileId);
+            if (load != null) {
+                load.pile.setStatus(status);
+            }
+        });
+    }
+
+    /**
+     * 新增充电桩
+     */
+    public void onPileAdded(ChargingPile pile) {
+        ChargingPile added = copyOf(pile);
+        afterCommit(() -> loads.putIfAbsent(added.getId(), new PileLoad(added)));
+    }
+
+    /**
+     * 删除充电桩
+     */
+    public void onPileRemoved(Integer pileId) {
+        afterCommit(() -> loads.remove(pileId));
+    }
+
+    /**
+     * 充电桩队列长度配置变更后同步更新
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSystemConfigChanged(SystemConfigChangedEvent event) {
+        String value = event.getChangedValues().get(ChargingConstants.CONFIG_PILE_QUEUE_LENGTH);
+        if (value != null) {
+            synchronized (this) {
+                maxQueueLength = parseQueueLength(value, maxQueueLength);
+                version++;
+            }
+        }
+    }
+
+    /**
+     * 定时从数据库重新加载，校正增量更新可能产生的偏差
+     */
+    @Scheduled(fixedRate = 60000)
+    public synchronized void reconcile() {
+        if (loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * 有事务时在提交后执行更新，没有事务时立即执行
+     */
+    private void afterCommit(Runnable update) {
+        TransactionHooks.afterCommit(() -> apply(update));
+    }
+
+    private synchronized void apply(Runnable update) {
+        // 尚未加载时不需要增量更新，首次查询会加载最新状态
+        if (loaded) {
+            update.run();
+            version++;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * 从数据库加载全部充电桩、充电区中的请求和队列长度配置，调用方持有本对象锁
+     */
+    private void reload() {
+        loads.clear();
+        for (ChargingPile pile : chargingPileMapper.selectList(null)) {
+            loads.put(pile.getId(), new PileLoad(pile));
+        }
+
+        LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.isNotNull(ChargingRequest::getChargingPileId)
+                   .in(ChargingRequest::getStatus, ChargingConstants.STATUS_WAITING, ChargingConstants.STATUS_CHARGING)
+                   .orderBy(true, true, ChargingRequest::getQueuePosition);
+        for (ChargingRequest request : chargingRequestMapper.selectList(queryWrapper)) {
+            PileLoad load = loads.get(request.getChargingPileId());
+            if (load == null) {
+                continue;
+            }
+            if (ChargingConstants.STATUS_CHARGING.equals(request.getStatus())) {
+                if (load.chargingRequest == null) {
+                    load.chargingRequest = request;
+                }
+            } else {
+                load.enqueue(request);
+            }
+        }
+
+        maxQueueLength = parseQueueLength(
+                systemConfigService.getConfigValue(ChargingConstants.CONFIG_PILE_QUEUE_LENGTH), maxQueueLength);
+        version++;
+        loaded = true;
+    }
+
+    private void removeFromAll(String requestId) {
+        for (PileLoad load : loads.values()) {
+            load.remove(requestId);
+        }
+    }
+
+    private static int parseQueueLength(String value, int defaultValue) {
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // 配置格式错误，保留原值
+            }
+        }
+        return defaultValue;
+    }
+
+    private static ChargingPile copyOf(ChargingPile pile) {
+        ChargingPile copy = new ChargingPile(pile.getPileNumber(), pile.getPileType(),
+                pile.getChargingPower(), pile.getStatus());
+        copy.setId(pile.getId());
+        return copy;
+    }
+
+    /**
+     * 单个充电桩的负载
+     */
+    private static class PileLoad {
+        private final ChargingPile pile;
+        private ChargingRequest chargingRequest;
+        // 队列中的请求ID -> 充电时长（分钟），按进入队列的顺序
+        private final Map<String, Integer> queuedMinutes = new LinkedHashMap<>();
+        private int queueWork;
+
+        PileLoad(ChargingPile pile) {
+            this.pile = pile;
+        }
+
+        void enqueue(ChargingRequest request) {
+            int minutes = SchedulingSupport.calculateChargingTime(request.getChargingAmount(), pile.getChargingPower());
+            Integer previous = queuedMinutes.put(request.getRequestId(), minutes);
+            queueWork += minutes - (previous != null ? previous : 0);
+        }
+
+        void remove(String requestId) {
+            Integer minutes = queuedMinutes.remove(requestId);
+            if (minutes != null) {
+                queueWork -= minutes;
+            }
+            if (chargingRequest != null && requestId.equals(chargingRequest.getRequestId())) {
+                chargingRequest = null;
+                if (ChargingConstants.PILE_STATUS_CHARGING.equals(pile.getStatus())) {
+                    pile.setStatus(ChargingConstants.PILE_STATUS_AVAILABLE);
+                }
+            }
+        }
+
+        int waitingTime(LocalDateTime now) {
+            int remaining = 0;
+            if (chargingRequest != null && ChargingConstants.PILE_STATUS_CHARGING.equals(pile.getStatus())) {
+                remaining = SchedulingSupport.calculateRemainingChargingTime(chargingRequest, pile, now);
+            }
+            return remaining + queueWork;
+        }
+
+        boolean isSchedulable() {
+            return ChargingConstants.PILE_STATUS_AVAILABLE.equals(pile.getStatus())
+                    || ChargingConstants.PILE_STATUS_CHARGING.equals(pile.getStatus());
+        }
+
+        /**
+         * 与 {@link StationSnapshot#hasAvailableCapacity} 口径一致：正在充电的桩占用一个位置
+         */
+        boolean hasAvailableCapacity(int maxQueueLength) {
+            int occupied = queuedMinutes.size();
+            if (!ChargingConstants.PILE_STATUS_AVAILABLE.equals(pile.getStatus())) {
+                occupied++;
+            }
+            return maxQueueLength - occupied > 0;
+        }
+    }
+
+    /**
+     * 某一时刻全部充电桩负载的只读副本
+     */
+    static final class LoadView {
+        final long version;
+        final int maxQueueLength;
+        final List<PileView> piles;
+
+        LoadView(long version, int maxQueueLength, List<PileView> piles) {
+            this.version = version;
+            this.maxQueueLength = maxQueueLength;
+            this.piles = piles;
+        }
+    }
+
+    /**
+     * 单个充电桩负载的只读副本
+     */
+    static final class PileView {
+        final ChargingPile pile;
+        // 正在充电的请求，没有时为null
+        final ChargingRequest chargingRequest;
+        // 正在充电车辆的剩余时间（分钟），充电桩不在充电中时为0
+        final int remainingMinutes;
+        // 队列中的请求ID和对应的充电时长（分钟），按进入队列的顺序
+        final List<String> queuedRequestIds;
+        final List<Integer> queuedMinutes;
+
+        PileView(ChargingPile pile, ChargingRequest chargingRequest, int remainingMinutes,
+                List<String> queuedRequestIds, List<Integer> queuedMinutes) {
+            this.pile = pile;
+            this.chargingRequest = chargingRequest;
+            this.remainingMinutes = remainingMinutes;
+            this.queuedRequestIds = queuedRequestIds;
+            this.queuedMinutes = queuedMinutes;
+        }
+    }
+}
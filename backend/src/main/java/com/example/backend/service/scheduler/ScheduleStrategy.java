@@ -0,0 +1,43 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.model.entity.ChargingRequest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调度策略
+ * 实现类注册为Spring Bean即可被 {@link ScheduleStrategyRegistry} 发现，
+ * 通过系统配置 schedule_strategy 按名称切换，无需修改调度核心
+ */
+public interface ScheduleStrategy {
+
+    /**
+     * 策略名称，对应系统配置 schedule_strategy 的取值
+     */
+    String getName();
+
+    /**
+     * 是否可以按充电桩类型拆分快照并发调度
+     * 需要同时看到所有类型充电桩的策略返回false，在整个快照上执行
+     */
+    default boolean isPartitioned() {
+        return true;
+    }
+
+    /**
+     * 在快照上执行一轮调度，分配直接记录到快照中
+     *
+     * @param snapshot 充电站快照（可能是某一类型充电桩的分区）
+     * @return 本轮分配的请求
+     */
+    List<ChargingRequest> plan(StationSnapshot snapshot);
+
+    /**
+     * 策略内部求解器的统计，没有时返回空
+     */
+    default Map<String, Object> getSolverMetrics() {
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.service.SystemConfigService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 调度策略注册表
+ * 收集所有 {@link ScheduleStrategy} Bean，保存当前生效的策略和各策略的运行统计。
+ * 当前策略只在启动时和系统配置变更后切换，调度每轮开始时取一次当前策略，
+ * 切换对正在执行的一轮没有影响，下一轮起使用新策略。
+ */
+@Component
+public class ScheduleStrategyRegistry {
+
+    private final Map<String, ScheduleStrategy> strategies = new LinkedHashMap<>();
+    private final Map<String, StrategyMetrics> metrics = new LinkedHashMap<>();
+    private final AtomicReference<ScheduleStrategy> activeStrategy = new AtomicReference<>();
+
+    @Autowired(required = false)
+    private SystemConfigService systemConfigService;
+
+    public ScheduleStrategyRegistry(List<ScheduleStrategy> strategies) {
+        for (ScheduleStrategy strategy : strategies) {
+            if (this.strategies.putIfAbsent(strategy.getName(), strategy) != null) {
+                throw new IllegalStateException("调度策略名称重复: " + strategy.getName());
+            }
+            metrics.put(strategy.getName(), new StrategyMetrics());
+        }
+        if (this.strategies.isEmpty()) {
+            throw new IllegalStateException("没有可用的调度策略");
+        }
+
+        // 默认使用原始调度策略
+        ScheduleStrategy defaultStrategy = this.strategies.get(ChargingConstants.SCHEDULE_STRATEGY_ORIGINAL);
+        activeStrategy.set(defaultStrategy != null ? defaultStrategy : strategies.get(0));
+    }
+
+    /**
+     * 使用内置调度策略创建注册表，供不启动Spring容器的模拟器和基准测试使用
+     */
+    public static ScheduleStrategyRegistry withBuiltInStrategies() {
+        return new ScheduleStrategyRegistry(Arrays.asList(
+                new OriginalScheduleStrategy(),
+                new SingleBatchOptimalScheduleStrategy(),
+                new FullBatchOptimalScheduleStrategy()));
+    }
+
+    /**
+     * 启动时按系统配置选择调度策略
+     */
+    @PostConstruct
+    public void loadConfiguredStrategy() {
+        if (systemConfigService == null) {
+            return;
+        }
+        try {
+            switchTo(systemConfigService.getConfigValue(ChargingConstants.CONFIG_SCHEDULE_STRATEGY));
+        } catch (Exception e) {
+            // 配置表尚未初始化，使用默认策略
+        }
+    }
+
+    /**
+     * 系统配置更新提交后，如果调度策略发生变化则切换
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSystemConfigChanged(SystemConfigChangedEvent event) {
+        String strategyName = event.getChangedValues().get(ChargingConstants.CONFIG_SCHEDULE_STRATEGY);
+        if (strategyName != null) {
+            switchTo(strategyName);
+        }
+    }
+
+    /**
+     * 切换当前调度策略
+     *
+     * @param strategyName 策略名称
+     * @return 是否切换成功；名称为空或未知时保持当前策略
+     */
+    public boolean switchTo(String strategyName) {
+        ScheduleStrategy strategy = getStrategy(strategyName);
+        if (strategy == null) {
+            return false;
+        }
+        activeStrategy.set(strategy);
+        return true;
+    }
+
+    /**
+     * 按名称查找调度策略，未知时返回null
+     */
+    public ScheduleStrategy getStrategy(String strategyName) {
+        return strategyName != null ? strategies.get(strategyName.trim()) : null;
+    }
+
+    /**
+     * 当前生效的调度策略
+     */
+    public ScheduleStrategy getActiveStrategy() {
+        return activeStrategy.get();
+    }
+
+    /**
+     * 指定策略的运行统计
+     */
+    public StrategyMetrics getMetrics(ScheduleStrategy strategy) {
+        return metrics.get(strategy.getName());
+    }
+
+    /**
+     * 当前策略和各策略的运行统计，供管理端查看
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> strategyMetrics = new LinkedHashMap<>();
+        for (Map.Entry<String, ScheduleStrategy> entry : strategies.entrySet()) {
+            Map<String, Object> values = new LinkedHashMap<>(metrics.get(entry.getKey()).toMap());
+            Map<String, Object> solverMetrics = entry.getValue().getSolverMetrics();
+            if (!solverMetrics.isEmpty()) {
+                values.put("solver", solverMetrics);
+            }
+            strategyMetrics.put(entry.getKey(), values);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("activeStrategy", getActiveStrategy().getName());
+        result.put("strategies", Collections.unmodifiableMap(strategyMetrics));
+        return result;
+    }
+}
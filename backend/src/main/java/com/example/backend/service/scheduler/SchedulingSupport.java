@@ -0,0 +1,151 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 调度策略共用的时间计算
+ * 只读取充电站快照，不访问数据库，调度核心和各调度策略共用同一套计算口径
+ */
+public final class SchedulingSupport {
+
+    private SchedulingSupport() {
+    }
+
+    /**
+     * 计算充电时间（分钟） = 充电量（kWh） / 充电功率（kW） * 60，向上取整
+     */
+    public static int calculateChargingTime(Double chargingAmount, Double chargingPower) {
+        if (chargingAmount == null || chargingPower == null || chargingPower <= 0) {
+            return 0;
+        }
+        return (int) Math.ceil((chargingAmount / chargingPower) * 60);
+    }
+
+    /**
+     * 计算当前充电请求的剩余充电时间
+     */
+    public static int calculateRemainingChargingTime(ChargingRequest request, ChargingPile pile, LocalDateTime now) {
+        LocalDateTime startTime = request.getStartTime();
+        if (startTime == null) {
+            return calculateChargingTime(request.getChargingAmount(), pile.getChargingPower());
+        }
+
+        // 计算已充电时间（分钟）
+        long chargedMinutes = ChronoUnit.MINUTES.between(startTime, now);
+
+        // 计算已充电量
+        double chargedAmount = (pile.getChargingPower() * chargedMinutes) / 60;
+
+        // 计算剩余充电量
+        double remainingAmount = request.getChargingAmount() - chargedAmount;
+
+        if (remainingAmount <= 0) {
+            return 0; // 已充满
+        }
+
+        return calculateChargingTime(remainingAmount, pile.getChargingPower());
+    }
+
+    /**
+     * 计算在指定充电桩的等待时间 = 正在充电车辆的剩余时间 + 队列中车辆的充电时间
+     */
+    public static int calculateWaitingTime(StationSnapshot snapshot, ChargingPile pile) {
+        int totalWaitingTime = 0;
+
+        // 如果充电桩正在充电，计算当前充电的剩余时间
+        if (ChargingConstants.PILE_STATUS_CHARGING.equals(pile.getStatus())) {
+            ChargingRequest currentRequest = snapshot.getChargingRequest(pile.getId());
+            if (currentRequest != null) {
+                totalWaitingTime += calculateRemainingChargingTime(currentRequest, pile, snapshot.getNow());
+            }
+        }
+
+        // 队列中等待的请求的充电时间，由快照在加载和分配时增量维护
+        totalWaitingTime += snapshot.getQueuedChargingTime(pile.getId());
+
+        return totalWaitingTime;
+    }
+
+    /**
+     * 在对应充电模式的充电桩中找到完成充电总时长最短且有空位的充电桩
+     *
+     * @return 最优充电桩；没有可用充电桩或队列都已满时返回null
+     */
+    public static ChargingPile findOptimalPile(StationSnapshot snapshot, ChargingRequest request) {
+        String pileType = StationSnapshot.pileTypeOf(request.getChargingMode());
+        Double chargingAmount = request.getChargingAmount();
+
+        ChargingPile optimalPile = null;
+        int minTotalTime = Integer.MAX_VALUE;
+
+        // 遍历有剩余容量的充电桩，找到总时长最短的
+        for (ChargingPile pile : snapshot.getAvailablePilesByType(pileType)) {
+            if (!snapshot.hasAvailableCapacity(pile)) {
+                continue; // 队列已满
+            }
+            int totalTime = calculateWaitingTime(snapshot, pile)
+                    + calculateChargingTime(chargingAmount, pile.getChargingPower());
+            if (totalTime < minTotalTime) {
+                minTotalTime = totalTime;
+                optimalPile = pile;
+            }
+        }
+
+        return optimalPile;
+    }
+
+    /**
+     * 计算快照中所有可调度充电桩的最晚完成时间（makespan），即各充电桩等待时间的最大值
+     */
+    public static int calculateMakespan(StationSnapshot snapshot) {
+        int makespan = 0;
+        for (ChargingPile pile : snapshot.getAllAvailablePiles()) {
+            makespan = Math.max(makespan, calculateWaitingTime(snapshot, pile));
+        }
+        return makespan;
+    }
+
+    /**
+     * 计算一批分配的目标值：被分配车辆完成充电时长（等待时间 + 充电时间）之和
+     * 按快照中各充电桩当前的队列顺序计算，用于比较不同调度策略
+     */
+    public static double calculateAssignmentObjective(StationSnapshot snapshot, Collection<ChargingRequest> assignments) {
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+        Set<Integer> assignedPileIds = new HashSet<>();
+        Set<ChargingRequest> assigned = new HashSet<>(assignments);
+        for (ChargingRequest request : assignments) {
+            assignedPileIds.add(request.getChargingPileId());
+        }
+
+        double objective = 0;
+        for (ChargingPile pile : snapshot.getPiles()) {
+            if (!assignedPileIds.contains(pile.getId())) {
+                continue;
+            }
+            double finishTime = 0;
+            ChargingRequest currentRequest = snapshot.getChargingRequest(pile.getId());
+            if (currentRequest != null) {
+                finishTime += calculateRemainingChargingTime(currentRequest, pile, snapshot.getNow());
+            }
+            List<ChargingRequest> queue = snapshot.getQueueRequests(pile.getId());
+            for (ChargingRequest request : queue) {
+                finishTime += calculateChargingTime(request.getChargingAmount(), pile.getChargingPower());
+                if (assigned.contains(request)) {
+                    objective += finishTime;
+                }
+            }
+        }
+        return objective;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.service.SchedulerService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 事件驱动的调度触发器
+ * 收到充电站状态变化事件或系统配置变更事件后，在单线程调度循环中防抖执行一次调度，
+ * 短时间内的多个事件合并为一次调度；调度执行期间到达的事件会在本轮结束后再触发一轮。
+ * 定时轮询仅作为兜底，防止事件丢失导致请求长期得不到调度。
+ */
+@Component
+public class SchedulingTrigger {
+
+    /**
+     * 防抖时间（毫秒），合并同一批操作产生的多个事件
+     */
+    private static final long DEBOUNCE_MILLIS = 20;
+
+    @Autowired
+    private SchedulerService schedulerService;
+
+    // 所有调度都在这一个线程中串行执行
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduling-trigger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 是否已有一轮待执行的调度
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    /**
+     * 状态变化事务提交后触发调度；事务回滚时不触发
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        requestRun();
+    }
+
+    /**
+     * 系统配置更新提交后触发调度
+     * 队列长度、等候区容量、批次阈值和调度策略都会改变调度结果；
+     * 负载索引、等候区和策略注册表的监听器同样在提交后同步执行，防抖后的调度读到的已是新配置
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSystemConfigChanged(SystemConfigChangedEvent event) {
+        requestRun();
+    }
+
+    /**
+     * 兜底轮询，每60秒触发一次调度
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void safetyNetPoll() {
+        requestRun();
+    }
+
+    /**
+     * 请求执行一次调度，已有待执行的调度时直接合并
+     */
+    public void requestRun() {
+        if (pending.compareAndSet(false, true)) {
+            executor.schedule(this::runOnce, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runOnce() {
+        // 先清除标记，执行期间到达的事件会再安排一轮
+        pending.set(false);
+        try {
+            schedulerService.processWaitingRequests();
+        } catch (Exception e) {
+            // 本轮调度失败，等待下一次事件或兜底轮询
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.model.entity.ChargingRequest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 影子调度对比统计
+ * 每轮比较当前策略与候选策略在同一快照上的方案：目标值（被分配车辆完成充电时长之和）、
+ * makespan、求解耗时，以及两者分配结果不一致的比例。差值均为 候选策略 - 当前策略。
+ */
+public class ShadowMetrics {
+
+    private final String primaryStrategy;
+    private final String candidateStrategy;
+
+    private long comparedTicks;
+    private long skippedTicks;
+    private long disagreedTicks;
+    private long comparedVehicles;
+    private long disagreedVehicles;
+    private long assignedDeltaSum;
+    private double objectiveDeltaSum;
+    private double makespanDeltaSum;
+    private double lastObjectiveDelta;
+    private double lastMakespanDelta;
+    private long primarySolveNanos;
+    private long candidateSolveNanos;
+    private long maxCandidateSolveNanos;
+
+    public ShadowMetrics(String primaryStrategy, String candidateStrategy) {
+        this.primaryStrategy = primaryStrategy;
+        this.candidateStrategy = candidateStrategy;
+    }
+
+    /**
+     * 是否为同一组策略的统计，策略变化后重新统计
+     */
+    public boolean isFor(String primaryStrategy, String candidateStrategy) {
+        return this.primaryStrategy.equals(primaryStrategy) && this.candidateStrategy.equals(candidateStrategy);
+    }
+
+    /**
+     * 记录一轮对比
+     *
+     * @param primary 当前策略的方案
+     * @param candidate 候选策略的方案
+     */
+    public synchronized void record(PlanSummary primary, PlanSummary candidate) {
+        comparedTicks++;
+
+        // 任一方案分配的请求都参与比较，分配到不同充电桩或只被一方分配即为不一致
+        Set<String> requestIds = new HashSet<>(primary.getPileAssignments().keySet());
+        requestIds.addAll(candidate.getPileAssignments().keySet());
+        int disagreed = 0;
+        for (String requestId : requestIds) {
+            if (!Objects.equals(primary.getPileAssignments().get(requestId),
+                    candidate.getPileAssignments().get(requestId))) {
+                disagreed++;
+            }
+        }
+        comparedVehicles += requestIds.size();
+        disagreedVehicles += disagreed;
+        if (disagreed > 0) {
+            disagreedTicks++;
+        }
+        // 两个方案分配的车辆数可能不同（如批次策略未达到阈值时不叫号），目标值差需结合车辆数差解读
+        assignedDeltaSum += candidate.getPileAssignments().size() - primary.getPileAssignments().size();
+
+        lastObjectiveDelta = candidate.getObjective() - primary.getObjective();
+        lastMakespanDelta = candidate.getMakespan() - primary.getMakespan();
+        objectiveDeltaSum += lastObjectiveDelta;
+        makespanDeltaSum += lastMakespanDelta;
+
+        primarySolveNanos += primary.getSolveNanos();
+        candidateSolveNanos += candidate.getSolveNanos();
+        maxCandidateSolveNanos = Math.max(maxCandidateSolveNanos, candidate.getSolveNanos());
+    }
+
+    /**
+     * 影子线程仍在执行上一轮，本轮未对比
+     */
+    public synchronized void recordSkipped() {
+        skippedTicks++;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("primaryStrategy", primaryStrategy);
+        metrics.put("candidateStrategy", candidateStrategy);
+        metrics.put("comparedTicks", comparedTicks);
+        metrics.put("skippedTicks", skippedTicks);
+        metrics.put("tickDisagreementRate", comparedTicks > 0 ? (double) disagreedTicks / comparedTicks : 0.0);
+        metrics.put("vehicleDisagreementRate",
+                comparedVehicles > 0 ? (double) disagreedVehicles / comparedVehicles : 0.0);
+        metrics.put("averageAssignedDelta", comparedTicks > 0 ? (double) assignedDeltaSum / comparedTicks : 0.0);
+        metrics.put("averageObjectiveDelta", comparedTicks > 0 ? objectiveDeltaSum / comparedTicks : 0.0);
+        metrics.put("averageMakespanDelta", comparedTicks > 0 ? makespanDeltaSum / comparedTicks : 0.0);
+        metrics.put("lastObjectiveDelta", lastObjectiveDelta);
+        metrics.put("lastMakespanDelta", lastMakespanDelta);
+        metrics.put("averagePrimarySolveMillis", comparedTicks > 0 ? primarySolveNanos / 1e6 / comparedTicks : 0.0);
+        metrics.put("averageCandidateSolveMillis",
+                comparedTicks > 0 ? candidateSolveNanos / 1e6 / comparedTicks : 0.0);
+        metrics.put("maxCandidateSolveMillis", maxCandidateSolveNanos / 1e6);
+        return metrics;
+    }
+
+    /**
+     * 一轮调度方案的摘要
+     */
+    public static class PlanSummary {
+        private final Map<String, Integer> pileAssignments;  // 请求ID -> 充电桩ID
+        private final double objective;
+        private final int makespan;
+        private final long solveNanos;
+
+        public PlanSummary(Map<String, Integer> pileAssignments, double objective, int makespan, long solveNanos) {
+            this.pileAssignments = pileAssignments;
+            this.objective = objective;
+            this.makespan = makespan;
+            this.solveNanos = solveNanos;
+        }
+
+        /**
+         * 汇总一轮调度的方案
+         *
+         * @param station 整个充电站的快照，未参与调度的充电桩也计入makespan
+         * @param planned 实际执行调度的快照（整个快照或各分区）
+         * @param solveNanos 求解耗时（纳秒）
+         */
+        public static PlanSummary of(StationSnapshot station, List<StationSnapshot> planned, long solveNanos) {
+            Map<String, Integer> pileAssignments = new HashMap<>();
+            double objective = 0;
+            int makespan = SchedulingSupport.calculateMakespan(station);
+            for (StationSnapshot snapshot : planned) {
+                for (ChargingRequest request : snapshot.getAssignments()) {
+                    pileAssignments.put(request.getRequestId(), request.getChargingPileId());
+                }
+                objective += SchedulingSupport.calculateAssignmentObjective(snapshot, snapshot.getAssignments());
+                if (snapshot != station) {
+                    makespan = Math.max(makespan, SchedulingSupport.calculateMakespan(snapshot));
+                }
+            }
+            return new PlanSummary(pileAssignments, objective, makespan, solveNanos);
+        }
+
+        public Map<String, Integer> getPileAssignments() {
+            return pileAssignments;
+        }
+
+        public double getObjective() {
+            return objective;
+        }
+
+        public int getMakespan() {
+            return makespan;
+        }
+
+        public long getSolveNanos() {
+            return solveNanos;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 影子调度
+ * 配置 shadow_schedule_strategy 后，每轮调度把正式调度前复制的快照交给候选策略，
+ * 在单独的低优先级线程中求解，结果只用于与当前策略对比，不写回数据库。
+ * 复用正式调度已加载的快照，不增加数据库查询；影子线程忙时直接跳过本轮，不堆积任务。
+ * 候选策略的分区在影子线程中依次执行，其求解耗时是串行耗时；策略内部的求解器统计同时包含影子调度的求解。
+ */
+@Component
+public class ShadowScheduler {
+
+    @Autowired
+    private ScheduleStrategyRegistry strategyRegistry;
+
+    // 单线程、最低优先级，最多排队一轮
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), runnable -> {
+                Thread thread = new Thread(runnable, "shadow-scheduler");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+    // 当前这组 当前策略/候选策略 的对比统计，策略变化后重新统计
+    private final AtomicReference<ShadowMetrics> metrics = new AtomicReference<>();
+
+    /**
+     * 本轮的候选策略
+     *
+     * @return 候选策略；未配置、名称未知或与当前策略相同时返回null
+     */
+    public ScheduleStrategy resolveCandidate(StationSnapshot snapshot, ScheduleStrategy primary) {
+        ScheduleStrategy candidate = strategyRegistry.getStrategy(
+                snapshot.getConfigValue(ChargingConstants.CONFIG_SHADOW_SCHEDULE_STRATEGY));
+        return candidate != null && candidate != primary ? candidate : null;
+    }
+
+    /**
+     * 提交一轮影子调度
+     *
+     * @param primary 当前策略
+     * @param candidate 候选策略
+     * @param shadowSnapshot 正式调度前复制的快照
+     * @param primarySummary 当前策略本轮的方案
+     */
+    public void submit(ScheduleStrategy primary, ScheduleStrategy candidate,
+            StationSnapshot shadowSnapshot, ShadowMetrics.PlanSummary primarySummary) {
+        ShadowMetrics current = metricsFor(primary.getName(), candidate.getName());
+        try {
+            executor.execute(() -> {
+                try {
+                    current.record(primarySummary, plan(candidate, shadowSnapshot));
+                } catch (RuntimeException e) {
+                    // 候选策略出错不影响正式调度，本轮不计入对比
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            current.recordSkipped();
+        }
+    }
+
+    /**
+     * 影子调度对比统计，未启用时返回空
+     */
+    public Map<String, Object> getMetrics() {
+        ShadowMetrics current = metrics.get();
+        return current != null ? current.toMap() : Collections.emptyMap();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在影子线程中执行候选策略，分区依次执行，不占用正式调度的线程池
+     */
+    private ShadowMetrics.PlanSummary plan(ScheduleStrategy candidate, StationSnapshot snapshot) {
+        long startNanos = System.nanoTime();
+        snapshot.setPlanningDeadline(startNanos + snapshot.getBatchSolverTimeBudgetMillis() * 1_000_000L);
+
+        List<StationSnapshot> planned = new ArrayList<>();
+        if (candidate.isPartitioned()) {
+            for (StationSnapshot partition : snapshot.partitionByPileType().values()) {
+                if (!partition.getWaitingRequests().isEmpty()) {
+                    candidate.plan(partition);
+                    planned.add(partition);
+                }
+            }
+        } else {
+            candidate.plan(snapshot);
+            planned.add(snapshot);
+        }
+        return ShadowMetrics.PlanSummary.of(snapshot, planned, System.nanoTime() - startNanos);
+    }
+
+    private ShadowMetrics metricsFor(String primaryStrategy, String candidateStrategy) {
+        ShadowMetrics current = metrics.get();
+        while (current == null || !current.isFor(primaryStrategy, candidateStrategy)) {
+            ShadowMetrics replacement = new ShadowMetrics(primaryStrategy, candidateStrategy);
+            if (metrics.compareAndSet(current, replacement)) {
+                return replacement;
+            }
+            current = metrics.get();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 单批次最优调度策略
+ * 当充电区某种模式的充电桩出现根据参数指定的空位数N时，
+ * 系统要在等候区该模式对应的队列中，按照编号顺序一次性叫N个车，
+ * 此时进入充电区的多辆车不再按照编号顺序依次调度，而是"统一调度"
+ */
+@Component
+public class SingleBatchOptimalScheduleStrategy implements ScheduleStrategy {
+
+    private final SolverMetrics solverMetrics = new SolverMetrics();
+
+    @Override
+    public String getName() {
+        return ChargingConstants.SCHEDULE_STRATEGY_SINGLE_BATCH_OPTIMAL;
+    }
+
+    @Override
+    public List<ChargingRequest> plan(StationSnapshot snapshot) {
+        // 等候区中出现的充电模式（按排队顺序）
+        Set<String> chargingModes = new LinkedHashSet<>();
+        for (ChargingRequest request : snapshot.getWaitingRequests()) {
+            chargingModes.add(request.getChargingMode());
+        }
+
+        for (String chargingMode : chargingModes) {
+            // 检查该模式充电桩空位数量并处理批次调度
+            int batchThreshold = getBatchThreshold(snapshot, chargingMode);
+            int availableSlots = getAvailableSlotsByMode(snapshot, chargingMode);
+            if (availableSlots >= batchThreshold) {
+                processSingleBatchForMode(snapshot, chargingMode, batchThreshold);
+            }
+        }
+        return snapshot.getAssignments();
+    }
+
+    @Override
+    public Map<String, Object> getSolverMetrics() {
+        return solverMetrics.toMap();
+    }
+
+    /**
+     * 获取指定充电模式的批次调度阈值，配置键为 充电模式 + "_batch_threshold"
+     */
+    private int getBatchThreshold(StationSnapshot snapshot, String chargingMode) {
+        int defaultThreshold = ChargingConstants.MODE_SLOW.equals(chargingMode) ? 3 : 2; // 默认快充2、慢充3
+        return snapshot.getIntConfig(chargingMode + ChargingConstants.CONFIG_BATCH_THRESHOLD_SUFFIX, defaultThreshold);
+    }
+
+    /**
+     * 获取指定充电模式的可用空位数量
+     */
+    private int getAvailableSlotsByMode(StationSnapshot snapshot, String chargingMode) {
+        int totalAvailableSlots = 0;
+        for (ChargingPile pile : snapshot.getAvailablePilesByType(StationSnapshot.pileTypeOf(chargingMode))) {
+            totalAvailableSlots += snapshot.getMaxCapacityForPile(pile);
+        }
+        return totalAvailableSlots;
+    }
+
+    /**
+     * 处理指定模式的单批次调度
+     */
+    private void processSingleBatchForMode(StationSnapshot snapshot, String chargingMode, int batchSize) {
+        // 从等候区获取指定模式的车辆，按编号顺序
+        List<ChargingRequest> modeRequests = snapshot.getWaitingRequestsByMode(chargingMode, batchSize);
+
+        if (modeRequests.size() < batchSize) {
+            return; // 等候区该模式车辆不足批次大小
+        }
+
+        // 获取该模式对应的有空位的充电桩
+        List<ChargingPile> availablePiles = snapshot.getAvailablePilesByType(StationSnapshot.pileTypeOf(chargingMode))
+                .stream()
+                .filter(snapshot::hasAvailableCapacity)
+                .collect(Collectors.toList());
+
+        if (availablePiles.isEmpty()) {
+            return; // 没有可用充电桩
+        }
+
+        BatchOptimizer.assignBatch(snapshot, modeRequests, availablePiles, solverMetrics);
+    }
+}
@@ -0,0 +1,510 @@
+package com.example.backend.service.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批次调度的槽位指派求解器
+ *
+ * 将"最小化所有车辆(等待时间+充电时间)之和"建模为(充电桩, 倒数队列位置)槽位上的最小费用指派问题：
+ * 同一充电桩上的车辆按最短充电时间优先(SPT)排队时，排在倒数第r位的车辆其充电时间会被
+ * 它自己以及排在它后面的r-1辆车各计入一次，因此车辆i放入槽位(j, r)的费用为
+ * pileCurrentWaitTimes[j] + r * vehicleChargingTimes[i][j]。
+ * 费用随r单调不减，最优解总是从r=1开始连续占用槽位，每个充电桩的槽位数即其剩余容量。
+ *
+ * 充电时间只取决于充电桩功率，功率相同的充电桩在矩阵中的列完全相同，因此按列分组后
+ * 用最小费用流求解：源点 -> 车辆 -> (分组, 位置r) -> 汇点，
+ * 车辆到(分组, r)的费用为 r * 充电时间，(分组, r)到汇点为组内每个桩各一条容量1、费用为其等待时间的边。
+ * 边数为O(n * 分组数 * 队列长度 + 槽位数)，逐次最短路增广，数百辆车可在毫秒级完成。
+ * 主目标求得精确最优后，再在不改变总时长的交换/迁移中降低makespan，作为二级目标。
+ */
+public final class SlotAssignmentSolver {
+
+    private static final double EPS = 1e-9;
+
+    private SlotAssignmentSolver() {
+    }
+
+    /**
+     * 求解单批次最优分配
+     *
+     * @param pileCurrentWaitTimes 每个充电桩当前的等待时间
+     * @param pileCapacities 每个充电桩剩余可分配的车位数
+     * @param vehicleChargingTimes 车辆在各充电桩上的充电时间矩阵[车辆][充电桩]
+     * @return 每辆车分配到的充电桩索引；车位不足以容纳全部车辆时返回null
+     */
+    public static int[] solve(double[] pileCurrentWaitTimes, int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int n = vehicleChargingTimes.length;
+        int m = pileCurrentWaitTimes.length;
+
+        if (n == 0) {
+            return new int[0];
+        }
+
+        int slotCount = 0;
+        for (int j = 0; j < m; j++) {
+            slotCount += Math.min(Math.max(pileCapacities[j], 0), n);
+        }
+        if (slotCount < n) {
+            return null; // 车位不足
+        }
+
+        // 按充电时间列分组（同功率的充电桩归为一组）
+        int[] pileGroup = new int[m];
+        List<Integer> groupRepresentatives = new ArrayList<>();
+        for (int j = 0; j < m; j++) {
+            pileGroup[j] = -1;
+            for (int g = 0; g < groupRepresentatives.size(); g++) {
+                if (sameColumn(vehicleChargingTimes, groupRepresentatives.get(g), j)) {
+                    pileGroup[j] = g;
+                    break;
+                }
+            }
+            if (pileGroup[j] < 0) {
+                pileGroup[j] = groupRepresentatives.size();
+                groupRepresentatives.add(j);
+            }
+        }
+        int groupCount = groupRepresentatives.size();
+
+        // 每组的最大位置数
+        int[] groupRanks = new int[groupCount];
+        for (int j = 0; j < m; j++) {
+            int slots = Math.min(Math.max(pileCapacities[j], 0), n);
+            groupRanks[pileGroup[j]] = Math.max(groupRanks[pileGroup[j]], slots);
+        }
+        int[] groupOffset = new int[groupCount + 1];
+        for (int g = 0; g < groupCount; g++) {
+            groupOffset[g + 1] = groupOffset[g] + groupRanks[g];
+        }
+
+        // 节点编号：车辆0..n-1，(分组, 位置)节点，汇点
+        int rankBase = n;
+        int sink = rankBase + groupOffset[groupCount];
+        FlowNetwork network = new FlowNetwork(sink + 1, n * groupOffset[groupCount] + slotCount);
+
+        int[] vehicleEdgeStart = new int[n];
+        for (int i = 0; i < n; i++) {
+            vehicleEdgeStart[i] = network.edgeCount;
+            for (int g = 0; g < groupCount; g++) {
+                double chargingTime = vehicleChargingTimes[i][groupRepresentatives.get(g)];
+                for (int r = 1; r <= groupRanks[g]; r++) {
+                    network.addEdge(i, rankBase + groupOffset[g] + r - 1, r * chargingTime);
+                }
+            }
+        }
+        int[] slotEdge = new int[slotCount];
+        int[] slotPile = new int[slotCount];
+        int[] slotRankNode = new int[slotCount];
+        int s = 0;
+        for (int j = 0; j < m; j++) {
+            int slots = Math.min(Math.max(pileCapacities[j], 0), n);
+            for (int r = 1; r <= slots; r++) {
+                int rankNode = rankBase + groupOffset[pileGroup[j]] + r - 1;
+                slotEdge[s] = network.edgeCount;
+                slotPile[s] = j;
+                slotRankNode[s] = rankNode;
+                network.addEdge(rankNode, sink, pileCurrentWaitTimes[j]);
+                s++;
+            }
+        }
+
+        // 逐辆车沿最短增广路加入，等价于在压缩图上执行匈牙利算法
+        network.initialize();
+        for (int i = 0; i < n; i++) {
+            if (!network.augment(i, sink)) {
+                return null;
+            }
+        }
+
+        // 还原分配：车辆 -> (分组, 位置)节点 -> 该节点上被使用的充电桩槽位
+        Map<Integer, Deque<Integer>> rankNodePiles = new HashMap<>();
+        for (int k = 0; k < slotCount; k++) {
+            if (network.isSaturated(slotEdge[k])) {
+                rankNodePiles.computeIfAbsent(slotRankNode[k], key -> new ArrayDeque<>()).add(slotPile[k]);
+            }
+        }
+        int[] assignments = new int[n];
+        for (int i = 0; i < n; i++) {
+            assignments[i] = -1;
+            int edgesPerVehicle = groupOffset[groupCount];
+            for (int e = 0; e < edgesPerVehicle; e++) {
+                int edge = vehicleEdgeStart[i] + 2 * e; // 正反向边成对存储
+                if (network.isSaturated(edge)) {
+                    assignments[i] = rankNodePiles.get(network.target(edge)).poll();
+                    break;
+                }
+            }
+        }
+
+        reduceMakespan(assignments, pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+        return assignments;
+    }
+
+    private static boolean sameColumn(double[][] vehicleChargingTimes, int a, int b) {
+        for (double[] row : vehicleChargingTimes) {
+            if (Double.compare(row[a], row[b]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单位容量边的最小费用流网络
+     * 所有费用非负，使用带势函数的Dijkstra逐次求最短增广路
+     */
+    private static final class FlowNetwork {
+        private final int nodeCount;
+        private final int[] head;
+        private int[] next;
+        private int[] to;
+        private int[] capacity;
+        private double[] cost;
+        private int edgeCount;
+
+        FlowNetwork(int nodeCount, int expectedEdges) {
+            this.nodeCount = nodeCount;
+            this.head = new int[nodeCount];
+            Arrays.fill(head, -1);
+            int size = Math.max(2, expectedEdges * 2);
+            this.next = new int[size];
+            this.to = new int[size];
+            this.capacity = new int[size];
+            this.cost = new double[size];
+        }
+
+        /**
+         * 添加容量为1的有向边及其反向边，正向边编号为偶数，反向边为其后一位
+         */
+        void addEdge(int from, int target, double edgeCost) {
+            if (edgeCount + 2 > to.length) {
+                int size = to.length * 2;
+                next = Arrays.copyOf(next, size);
+                to = Arrays.copyOf(to, size);
+                capacity = Arrays.copyOf(capacity, size);
+                cost = Arrays.copyOf(cost, size);
+            }
+            link(from, target, 1, edgeCost);
+            link(target, from, 0, -edgeCost);
+        }
+
+        private void link(int from, int target, int edgeCapacity, double edgeCost) {
+            to[edgeCount] = target;
+            capacity[edgeCount] = edgeCapacity;
+            cost[edgeCount] = edgeCost;
+            next[edgeCount] = head[from];
+            head[from] = edgeCount;
+            edgeCount++;
+        }
+
+        boolean isSaturated(int edge) {
+            return capacity[edge] == 0;
+        }
+
+        int target(int edge) {
+            return to[edge];
+        }
+
+        private double[] potential;
+        private double[] dist;
+        private int[] prevEdge;
+        private boolean[] done;
+        private NodeHeap heap;
+
+        void initialize() {
+            potential = new double[nodeCount];
+            dist = new double[nodeCount];
+            prevEdge = new int[nodeCount];
+            done = new boolean[nodeCount];
+            heap = new NodeHeap(nodeCount);
+        }
+
+        /**
+         * 从起点沿残量网络的最短路向汇点增广一单位流量
+         * 所有原始费用非负，势函数保证约化费用非负，可直接使用Dijkstra
+         *
+         * @return 是否找到增广路
+         */
+        boolean augment(int start, int sink) {
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            Arrays.fill(done, false);
+            heap.clear();
+            dist[start] = 0;
+            heap.push(start, 0);
+
+            while (!heap.isEmpty()) {
+                int node = heap.pop();
+                if (done[node]) {
+                    continue;
+                }
+                done[node] = true;
+                if (node == sink) {
+                    break; // 汇点距离已确定，提前结束
+                }
+                for (int e = head[node]; e != -1; e = next[e]) {
+                    if (capacity[e] == 0) {
+                        continue;
+                    }
+                    int target = to[e];
+                    double candidate = dist[node] + cost[e] + potential[node] - potential[target];
+                    if (candidate < dist[target] - EPS) {
+                        dist[target] = candidate;
+                        prevEdge[target] = e;
+                        heap.push(target, candidate);
+                    }
+                }
+            }
+
+            if (!done[sink]) {
+                return false; // 无增广路
+            }
+            // 未确定距离的节点按汇点距离更新势函数，保持约化费用非负
+            for (int v = 0; v < nodeCount; v++) {
+                potential[v] += done[v] ? dist[v] : dist[sink];
+            }
+            for (int v = sink; v != start; v = to[prevEdge[v] ^ 1]) {
+                capacity[prevEdge[v]]--;
+                capacity[prevEdge[v] ^ 1]++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Dijkstra使用的二叉堆（惰性删除，按距离取最小节点）
+     */
+    private static final class NodeHeap {
+        private int[] nodes;
+        private double[] keys;
+        private int size;
+
+        NodeHeap(int capacity) {
+            this.nodes = new int[Math.max(16, capacity)];
+            this.keys = new double[nodes.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                int node = nodes[size];
+                double key = keys[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && keys[child + 1] < keys[child]) {
+                        child++;
+                    }
+                    if (keys[child] >= key) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    keys[i] = keys[child];
+                    i = child;
+                }
+                nodes[i] = node;
+                keys[i] = key;
+            }
+            return top;
+        }
+    }
+
+    /**
+     * 二级目标：在总时长不变的前提下降低makespan
+     * 反复尝试把最晚完成的充电桩上的车辆迁移到其他桩或与其他桩上的车辆交换。
+     * 先用O(1)的完成时间判断过滤候选，再只对涉及的两个充电桩重算总时长，
+     * 单次评估代价与队列长度相关而与批次规模无关
+     */
+    private static void reduceMakespan(int[] assignments, double[] pileCurrentWaitTimes,
+            int[] pileCapacities, double[][] vehicleChargingTimes) {
+        int n = assignments.length;
+        int m = pileCurrentWaitTimes.length;
+
+        // 每个充电桩上的车辆及完成时间，移动时增量维护
+        int[] counts = new int[m];
+        for (int pile : assignments) {
+            counts[pile]++;
+        }
+        int[][] members = new int[m][];
+        for (int j = 0; j < m; j++) {
+            members[j] = new int[Math.max(counts[j], Math.min(Math.max(pileCapacities[j], 0), n))];
+            counts[j] = 0;
+        }
+        double[] finishTimes = pileCurrentWaitTimes.clone();
+        for (int i = 0; i < n; i++) {
+            int pile = assignments[i];
+            members[pile][counts[pile]++] = i;
+            finishTimes[pile] += vehicleChargingTimes[i][pile];
+        }
+
+        MoveEvaluator evaluator = new MoveEvaluator(n, pileCurrentWaitTimes, vehicleChargingTimes);
+        int maxRounds = n * m + 1;
+        for (int round = 0; round < maxRounds; round++) {
+            int bottleneck = 0;
+            for (int j = 1; j < m; j++) {
+                if (finishTimes[j] > finishTimes[bottleneck]) {
+                    bottleneck = j;
+                }
+            }
+            if (!improveBottleneck(bottleneck, members, counts, finishTimes, assignments, pileCapacities,
+                    vehicleChargingTimes, evaluator)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean improveBottleneck(int bottleneck, int[][] members, int[] counts, double[] finishTimes,
+            int[] assignments, int[] pileCapacities, double[][] vehicleChargingTimes, MoveEvaluator evaluator) {
+        int m = finishTimes.length;
+        double makespan = finishTimes[bottleneck];
+        double fromObjective = evaluator.objective(bottleneck, members[bottleneck], counts[bottleneck], -1, -1);
+
+        for (int target = 0; target < m; target++) {
+            if (target == bottleneck) {
+                continue;
+            }
+            double toObjective = Double.NaN;
+
+            for (int a = 0; a < counts[bottleneck]; a++) {
+                int v = members[bottleneck][a];
+                double vFrom = vehicleChargingTimes[v][bottleneck];
+                double vTo = vehicleChargingTimes[v][target];
+
+                // 迁移：v 从瓶颈桩移到 target
+                if (counts[target] < pileCapacities[target]
+                        && finishTimes[bottleneck] - vFrom < makespan - EPS
+                        && finishTimes[target] + vTo < makespan - EPS) {
+                    if (Double.isNaN(toObjective)) {
+                        toObjective = evaluator.objective(target, members[target], counts[target], -1, -1);
+                    }
+                    double newObjective = evaluator.objective(bottleneck, members[bottleneck], counts[bottleneck], a, -1)
+                            + evaluator.objective(target, members[target], counts[target], -1, v);
+                    if (Math.abs(newObjective - fromObjective - toObjective) <= EPS) {
+                        moveVehicle(v, a, bottleneck, target, members, counts, finishTimes, assignments,
+                                vehicleChargingTimes);
+                        return true;
+                    }
+                }
+
+                // 交换：v 与 target 上的车辆 w 互换
+                for (int b = 0; b < counts[target]; b++) {
+                    int w = members[target][b];
+                    if (finishTimes[bottleneck] - vFrom + vehicleChargingTimes[w][bottleneck] >= makespan - EPS
+                            || finishTimes[target] - vehicleChargingTimes[w][target] + vTo >= makespan - EPS) {
+                        continue;
+                    }
+                    if (Double.isNaN(toObjective)) {
+                        toObjective = evaluator.objective(target, members[target], counts[target], -1, -1);
+                    }
+                    double newObjective = evaluator.objective(bottleneck, members[bottleneck], counts[bottleneck], a, w)
+                            + evaluator.objective(target, members[target], counts[target], b, v);
+                    if (Math.abs(newObjective - fromObjective - toObjective) <= EPS) {
+                        moveVehicle(w, b, target, bottleneck, members, counts, finishTimes, assignments,
+                                vehicleChargingTimes);
+                        moveVehicle(v, indexOf(members[bottleneck], counts[bottleneck], v), bottleneck, target,
+                                members, counts, finishTimes, assignments, vehicleChargingTimes);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void moveVehicle(int vehicle, int index, int from, int target, int[][] members, int[] counts,
+            double[] finishTimes, int[] assignments, double[][] vehicleChargingTimes) {
+        members[from][index] = members[from][--counts[from]];
+        if (counts[target] == members[target].length) {
+            members[target] = Arrays.copyOf(members[target], counts[target] + 1);
+        }
+        members[target][counts[target]++] = vehicle;
+        finishTimes[from] -= vehicleChargingTimes[vehicle][from];
+        finishTimes[target] += vehicleChargingTimes[vehicle][target];
+        assignments[vehicle] = target;
+    }
+
+    private static int indexOf(int[] vehicles, int count, int vehicle) {
+        for (int k = 0; k < count; k++) {
+            if (vehicles[k] == vehicle) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 计算单个充电桩按SPT排队后的(等待时间+充电时间)之和，复用缓冲区避免重复分配
+     */
+    private static final class MoveEvaluator {
+        private final double[] buffer;
+        private final double[] pileCurrentWaitTimes;
+        private final double[][] vehicleChargingTimes;
+
+        MoveEvaluator(int n, double[] pileCurrentWaitTimes, double[][] vehicleChargingTimes) {
+            this.buffer = new double[n + 1];
+            this.pileCurrentWaitTimes = pileCurrentWaitTimes;
+            this.vehicleChargingTimes = vehicleChargingTimes;
+        }
+
+        /**
+         * @param skipIndex 需要排除的车辆下标（-1表示不排除）
+         * @param extraVehicle 需要额外加入的车辆（-1表示不加入）
+         */
+        double objective(int pile, int[] vehicles, int count, int skipIndex, int extraVehicle) {
+            int size = 0;
+            for (int k = 0; k < count; k++) {
+                if (k != skipIndex) {
+                    buffer[size++] = vehicleChargingTimes[vehicles[k]][pile];
+                }
+            }
+            if (extraVehicle >= 0) {
+                buffer[size++] = vehicleChargingTimes[extraVehicle][pile];
+            }
+            Arrays.sort(buffer, 0, size);
+
+            double serviceTime = pileCurrentWaitTimes[pile];
+            double total = 0;
+            for (int k = 0; k < size; k++) {
+                serviceTime += buffer[k];
+                total += serviceTime;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.service.scheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 限时求解器的运行统计
+ * 各分区可能并发求解，记录和读取都加锁；每轮调度只记录几次，开销可以忽略
+ */
+public class SolverMetrics {
+
+    private long solveCount;
+    private long budgetHitCount;
+    private long totalSolveNanos;
+    private double gapSum;
+    private double maxGap;
+    private double lastGap;
+
+    /**
+     * 记录一次限时求解
+     *
+     * @param result 求解结果
+     * @param solveNanos 求解耗时（纳秒）
+     */
+    public synchronized void record(AnytimeBatchSolver.Result result, long solveNanos) {
+        solveCount++;
+        if (result.isBudgetExhausted()) {
+            budgetHitCount++;
+        }
+        totalSolveNanos += solveNanos;
+
+        double gap = result.getGap();
+        gapSum += gap;
+        maxGap = Math.max(maxGap, gap);
+        lastGap = gap;
+    }
+
+    /**
+     * 当前统计值，供管理端查看
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("solveCount", solveCount);
+        metrics.put("budgetHitCount", budgetHitCount);
+        metrics.put("averageSolveMillis", solveCount > 0 ? totalSolveNanos / 1e6 / solveCount : 0.0);
+        metrics.put("averageGap", solveCount > 0 ? gapSum / solveCount : 0.0);
+        metrics.put("maxGap", maxGap);
+        metrics.put("lastGap", lastGap);
+        return metrics;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.backend.service.scheduler;
+
+/**
+ * 充电站状态变化事件
+ * 提交、取消、结束充电、修改请求以及充电桩开关、新增等会影响调度结果的操作完成后发布，
+ * 由 {@link SchedulingTrigger} 合并后触发一次调度
+ */
+public class StationChangedEvent {
+
+    /**
+     * 状态变化原因
+     */
+    public enum Reason {
+        REQUEST_SUBMITTED,   // 提交充电请求
+        REQUEST_CANCELED,    // 取消充电请求
+        REQUEST_MODIFIED,    // 修改充电请求
+        CHARGING_STOPPED,    // 结束充电（手动或自动）
+        PILE_STATUS_CHANGED, // 充电桩开启、关闭或故障
+        PILE_ADDED           // 新增充电桩
+    }
+
+    private final Reason reason;
+    private final String subject;  // 相关的请求ID或充电桩编号
+
+    public StationChangedEvent(Reason reason, String subject) {
+        this.reason = reason;
+        this.subject = subject;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 充电站快照
+ * 每轮调度开始时一次性加载全部充电桩、活跃请求和系统配置，
+ * 调度策略只读写快照，不再按充电桩逐个查询数据库。
+ * 分配请求时同步更新快照，保证同一轮内后续决策能看到前面的分配结果。
+ */
+public class StationSnapshot {
+
+    private static final Comparator<ChargingRequest> BY_CREATE_TIME = Comparator.comparing(
+            ChargingRequest::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static final Comparator<ChargingRequest> BY_QUEUE_POSITION = Comparator.comparing(
+            ChargingRequest::getQueuePosition, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final LocalDateTime now;
+    private final List<ChargingPile> piles;
+    private final Map<String, String> configValues;
+
+    // 充电区：每个充电桩正在充电的请求和排队中的请求（按队列位置排序）
+    private final Map<Integer, ChargingRequest> chargingRequests = new HashMap<>();
+    private final Map<Integer, List<ChargingRequest>> queueRequests = new HashMap<>();
+
+    // 每个充电桩队列中请求的充电时间之和（分钟），分配时增量更新
+    private final Map<Integer, Integer> queuedChargingTimes = new HashMap<>();
+
+    // 等候区：未分配充电桩的普通等待请求和优先级等待请求（按创建时间排序）
+    private final List<ChargingRequest> waitingRequests = new ArrayList<>();
+    private final List<ChargingRequest> priorityWaitingRequests = new ArrayList<>();
+
+    // 本轮调度产生、尚未写回数据库的分配（按分配顺序）
+    private final List<ChargingRequest> assignments = new ArrayList<>();
+
+    // 本轮调度的求解截止时间（System.nanoTime()），默认不限时
+    private long planningDeadlineNanos = Long.MAX_VALUE;
+
+    /**
+     * @param now 快照时间，用于计算正在充电请求的剩余时间
+     * @param piles 全部充电桩
+     * @param activeRequests 全部活跃请求（WAITING、PRIORITY_WAITING、CHARGING）
+     * @param configValues 系统配置键值对
+     */
+    public StationSnapshot(LocalDateTime now, List<ChargingPile> piles,
+            List<ChargingRequest> activeRequests, Map<String, String> configValues) {
+        this.now = now;
+        this.piles = new ArrayList<>(piles);
+        this.configValues = configValues != null ? configValues : Collections.emptyMap();
+
+        for (ChargingRequest request : activeRequests) {
+            String status = request.getStatus();
+            Integer pileId = request.getChargingPileId();
+
+            if (ChargingConstants.STATUS_CHARGING.equals(status)) {
+                if (pileId != null) {
+                    chargingRequests.putIfAbsent(pileId, request);
+                }
+            } else if (ChargingConstants.STATUS_WAITING.equals(status)) {
+                if (pileId != null) {
+                    queueRequests.computeIfAbsent(pileId, k -> new ArrayList<>()).add(request);
+                } else {
+                    waitingRequests.add(request);
+                }
+            } else if (ChargingConstants.STATUS_PRIORITY_WAITING.equals(status) && pileId == null) {
+                priorityWaitingRequests.add(request);
+            }
+        }
+
+        for (List<ChargingRequest> queue : queueRequests.values()) {
+            queue.sort(BY_QUEUE_POSITION);
+        }
+        for (ChargingPile pile : this.piles) {
+            int queuedChargingTime = 0;
+            for (ChargingRequest request : getQueueRequests(pile.getId())) {
+                queuedChargingTime += SchedulingSupport.calculateChargingTime(
+                        request.getChargingAmount(), pile.getChargingPower());
+            }
+            queuedChargingTimes.put(pile.getId(), queuedChargingTime);
+        }
+        waitingRequests.sort(BY_CREATE_TIME);
+        priorityWaitingRequests.sort(BY_CREATE_TIME);
+    }
+
+    public LocalDateTime getNow() {
+        return now;
+    }
+
+    /**
+     * 获取配置值，如果不存在返回null
+     */
+    public String getConfigValue(String configKey) {
+        return configValues.get(configKey);
+    }
+
+    /**
+     * 获取整数配置，配置缺失或格式错误时使用默认值
+     */
+    public int getIntConfig(String configKey, int defaultValue) {
+        String value = configValues.get(configKey);
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // 配置格式错误，使用默认值
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 限时求解模式下每轮调度的求解时间预算（毫秒），默认200
+     */
+    public int getBatchSolverTimeBudgetMillis() {
+        return Math.max(getIntConfig(ChargingConstants.CONFIG_BATCH_SOLVER_TIME_BUDGET_MS, 200), 0);
+    }
+
+    /**
+     * 充电桩队列长度（包含正在充电的车辆）
+     */
+    public int getMaxQueueLength() {
+        return getIntConfig(ChargingConstants.CONFIG_PILE_QUEUE_LENGTH, 2);
+    }
+
+    public List<ChargingPile> getPiles() {
+        return Collections.unmodifiableList(piles);
+    }
+
+    /**
+     * 获取指定类型的可调度充电桩（AVAILABLE或CHARGING状态）
+     */
+    public List<ChargingPile> getAvailablePilesByType(String pileType) {
+        return piles.stream()
+                .filter(pile -> pileType.equals(pile.getPileType()))
+                .filter(StationSnapshot::isSchedulable)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取所有未故障的充电桩（忽略类型）
+     */
+    public List<ChargingPile> getAllAvailablePiles() {
+        return piles.stream()
+                .filter(pile -> !ChargingConstants.PILE_STATUS_UNAVAILABLE.equals(pile.getStatus()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取指定充电桩正在充电的请求
+     */
+    public ChargingRequest getChargingRequest(Integer pileId) {
+        return chargingRequests.get(pileId);
+    }
+
+    /**
+     * 获取指定充电桩排队中的请求（按队列位置排序）
+     */
+    public List<ChargingRequest> getQueueRequests(Integer pileId) {
+        List<ChargingRequest> queue = queueRequests.get(pileId);
+        return queue != null ? Collections.unmodifiableList(queue) : Collections.emptyList();
+    }
+
+    /**
+     * 获取指定充电桩队列中请求的充电时间之和（分钟），不包含正在充电的请求
+     */
+    public int getQueuedChargingTime(Integer pileId) {
+        return queuedChargingTimes.getOrDefault(pileId, 0);
+    }
+
+    /**
+     * 获取等候区中未分配充电桩的普通等待请求（按创建时间排序）
+     */
+    public List<ChargingRequest> getWaitingRequests() {
+        return new ArrayList<>(waitingRequests);
+    }
+
+    /**
+     * 获取等候区中指定模式的等待请求（按创建时间排序）
+     */
+    public List<ChargingRequest> getWaitingRequestsByMode(String chargingMode, int limit) {
+        return waitingRequests.stream()
+                .filter(request -> chargingMode.equals(request.getChargingMode()))
+                .limit(Math.max(limit, 0))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取等候区中未分配充电桩的优先级请求（按创建时间排序）
+     */
+    public List<ChargingRequest> getPriorityWaitingRequests() {
+        return new ArrayList<>(priorityWaitingRequests);
+    }
+
+    public boolean hasPriorityWaitingRequests() {
+        return !priorityWaitingRequests.isEmpty();
+    }
+
+    /**
+     * 检查充电区是否有车辆（正在充电或已分配充电桩等待）
+     */
+    public boolean hasVehiclesInChargingArea() {
+        if (!chargingRequests.isEmpty()) {
+            return true;
+        }
+        return queueRequests.values().stream().anyMatch(queue -> !queue.isEmpty());
+    }
+
+    /**
+     * 获取充电桩的剩余容量
+     */
+    public int getMaxCapacityForPile(ChargingPile pile) {
+        int currentQueueSize = getQueueRequests(pile.getId()).size();
+
+        if (ChargingConstants.PILE_STATUS_AVAILABLE.equals(pile.getStatus())) {
+            // 可用桩：最大容量 - 当前队列中等待的请求数量
+            return Math.max(0, getMaxQueueLength() - currentQueueSize);
+        } else {
+            // 正在充电的桩：最大容量 - 当前队列中等待的请求数量 - 正在充电的车辆(1个)
+            return Math.max(0, getMaxQueueLength() - currentQueueSize - 1);
+        }
+    }
+
+    /**
+     * 检查充电桩是否有可用容量
+     */
+    public boolean hasAvailableCapacity(ChargingPile pile) {
+        return getMaxCapacityForPile(pile) > 0;
+    }
+
+    /**
+     * 在快照中记录一次分配：请求离开等候区，进入充电桩队列末尾
+     * 优先级等待请求同时恢复为普通等待状态，分配结果由调用方统一写回数据库
+     *
+     * @return 请求在该充电桩的队列位置
+     */
+    public int assign(ChargingRequest request, ChargingPile pile) {
+        waitingRequests.remove(request);
+        if (priorityWaitingRequests.remove(request)) {
+            request.setStatus(ChargingConstants.STATUS_WAITING);
+        }
+
+        List<ChargingRequest> queue = queueRequests.computeIfAbsent(pile.getId(), k -> new ArrayList<>());
+        int queuePosition = queue.size() + 1;
+
+        // 如果充电桩当前正在充电，队列位置需要加1
+        if (ChargingConstants.PILE_STATUS_CHARGING.equals(pile.getStatus())) {
+            queuePosition++;
+        }
+
+        request.setChargingPileId(pile.getId());
+        request.setQueuePosition(queuePosition);
+        queue.add(request);
+        queuedChargingTimes.merge(pile.getId(),
+                SchedulingSupport.calculateChargingTime(request.getChargingAmount(), pile.getChargingPower()),
+                Integer::sum);
+        assignments.add(request);
+        return queuePosition;
+    }
+
+    /**
+     * 按充电桩类型拆分快照
+     * 每个分区只包含该类型的充电桩、这些充电桩上的请求以及对应充电模式的等候区请求，
+     * 不同分区之间没有共享的可变状态，可以并发调度。必须在本轮任何分配之前调用。
+     *
+     * @return 充电桩类型 -> 分区快照（按类型排序）
+     */
+    public Map<String, StationSnapshot> partitionByPileType() {
+        Map<Integer, String> pileTypes = new HashMap<>();
+        Map<String, List<ChargingPile>> pilesByType = new TreeMap<>();
+        for (ChargingPile pile : piles) {
+            pileTypes.put(pile.getId(), pile.getPileType());
+            pilesByType.computeIfAbsent(pile.getPileType(), k -> new ArrayList<>()).add(pile);
+        }
+
+        Map<String, List<ChargingRequest>> requestsByType = new HashMap<>();
+        for (ChargingRequest request : chargingRequests.values()) {
+            requestsByType.computeIfAbsent(pileTypes.get(request.getChargingPileId()), k -> new ArrayList<>()).add(request);
+        }
+        for (Map.Entry<Integer, List<ChargingRequest>> entry : queueRequests.entrySet()) {
+            requestsByType.computeIfAbsent(pileTypes.get(entry.getKey()), k -> new ArrayList<>()).addAll(entry.getValue());
+        }
+        for (ChargingRequest request : waitingRequests) {
+            requestsByType.computeIfAbsent(pileTypeOf(request.getChargingMode()), k -> new ArrayList<>()).add(request);
+        }
+        for (ChargingRequest request : priorityWaitingRequests) {
+            requestsByType.computeIfAbsent(pileTypeOf(request.getChargingMode()), k -> new ArrayList<>()).add(request);
+        }
+
+        Map<String, StationSnapshot> partitions = new TreeMap<>();
+        for (Map.Entry<String, List<ChargingPile>> entry : pilesByType.entrySet()) {
+            List<ChargingRequest> requests = requestsByType.getOrDefault(entry.getKey(), Collections.emptyList());
+            StationSnapshot partition = new StationSnapshot(now, entry.getValue(), requests, configValues);
+            partition.planningDeadlineNanos = planningDeadlineNanos;
+            partitions.put(entry.getKey(), partition);
+        }
+        return partitions;
+    }
+
+    /**
+     * 复制快照，请求对象逐个复制，副本上的分配不会影响原快照和原请求对象
+     * 充电桩和配置在调度过程中只读，与原快照共享。必须在本轮任何分配之前调用。
+     */
+    public StationSnapshot copy() {
+        List<ChargingRequest> requests = new ArrayList<>();
+        for (ChargingRequest request : chargingRequests.values()) {
+            requests.add(copyOf(request));
+        }
+        for (List<ChargingRequest> queue : queueRequests.values()) {
+            for (ChargingRequest request : queue) {
+                requests.add(copyOf(request));
+            }
+        }
+        for (ChargingRequest request : waitingRequests) {
+            requests.add(copyOf(request));
+        }
+        for (ChargingRequest request : priorityWaitingRequests) {
+            requests.add(copyOf(request));
+        }
+
+        StationSnapshot copy = new StationSnapshot(now, piles, requests, configValues);
+        copy.planningDeadlineNanos = planningDeadlineNanos;
+        return copy;
+    }
+
+    /**
+     * 复制单个请求，调度过程中对副本的修改不影响原对象
+     */
+    static ChargingRequest copyOf(ChargingRequest request) {
+        ChargingRequest copy = new ChargingRequest(request.getRequestId(), request.getUserId(),
+                request.getChargingMode(), request.getChargingAmount(), request.getStatus(),
+                request.getCreateTime(), request.getStartTime(), request.getEndTime(),
+                request.getChargingPileId(), request.getQueuePosition());
+        copy.setId(request.getId());
+        return copy;
+    }
+
+    /**
+     * 充电模式对应的充电桩类型（fast -> FAST, slow -> SLOW）
+     */
+    public static String pileTypeOf(String chargingMode) {
+        return chargingMode != null ? chargingMode.toUpperCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * 设置本轮调度的求解截止时间，之后拆分出的分区共享同一截止时间
+     */
+    public void setPlanningDeadline(long deadlineNanos) {
+        this.planningDeadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 本轮调度的求解截止时间（System.nanoTime()），未设置时为Long.MAX_VALUE
+     */
+    public long getPlanningDeadline() {
+        return planningDeadlineNanos;
+    }
+
+    /**
+     * 获取本轮调度产生的全部分配
+     */
+    public List<ChargingRequest> getAssignments() {
+        return Collections.unmodifiableList(assignments);
+    }
+
+    private static boolean isSchedulable(ChargingPile pile) {
+        return ChargingConstants.PILE_STATUS_AVAILABLE.equals(pile.getStatus())
+                || ChargingConstants.PILE_STATUS_CHARGING.equals(pile.getStatus());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.backend.service.scheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个调度策略的运行统计：求解耗时、每轮分配车辆数、目标值（被分配车辆完成充电时长之和）
+ * 同一时刻只有一轮调度在执行，读取来自管理端线程，记录和读取都加锁
+ */
+public class StrategyMetrics {
+
+    private long runCount;
+    private long totalSolveNanos;
+    private long maxSolveNanos;
+    private long totalBatchSize;
+    private int maxBatchSize;
+    private double totalObjective;
+
+    /**
+     * 记录一轮调度
+     *
+     * @param solveNanos 求解耗时（纳秒）
+     * @param batchSize 本轮分配的车辆数
+     * @param objective 本轮被分配车辆完成充电时长之和（分钟）
+     */
+    public synchronized void record(long solveNanos, int batchSize, double objective) {
+        runCount++;
+        totalSolveNanos += solveNanos;
+        maxSolveNanos = Math.max(maxSolveNanos, solveNanos);
+        totalBatchSize += batchSize;
+        maxBatchSize = Math.max(maxBatchSize, batchSize);
+        totalObjective += objective;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runCount", runCount);
+        metrics.put("averageSolveMillis", runCount > 0 ? totalSolveNanos / 1e6 / runCount : 0.0);
+        metrics.put("maxSolveMillis", maxSolveNanos / 1e6);
+        metrics.put("assignedCount", totalBatchSize);
+        metrics.put("averageBatchSize", runCount > 0 ? (double) totalBatchSize / runCount : 0.0);
+        metrics.put("maxBatchSize", maxBatchSize);
+        metrics.put("totalObjective", totalObjective);
+        // 每辆车平均完成充电时长，便于在负载不同的时段之间比较策略
+        metrics.put("averageObjectivePerVehicle", totalBatchSize > 0 ? totalObjective / totalBatchSize : 0.0);
+        return metrics;
+    }
+}
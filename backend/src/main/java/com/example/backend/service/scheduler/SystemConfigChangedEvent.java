@@ -0,0 +1,21 @@
+package com.example.backend.service.scheduler;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 系统配置变更事件
+ * 管理员更新系统配置后发布，调度策略注册表据此切换当前调度策略
+ */
+public class SystemConfigChangedEvent {
+
+    private final Map<String, String> changedValues;  // 本次更新的配置键值对
+
+    public SystemConfigChangedEvent(Map<String, String> changedValues) {
+        this.changedValues = Collections.unmodifiableMap(changedValues);
+    }
+
+    public Map<String, String> getChangedValues() {
+        return changedValues;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.backend.service.scheduler;
+
+import com.example.backend.model.entity.ChargingRequest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 等候区等待时间估算的前缀和
+ * 按叫号顺序一次性计算等候区请求的累计充电时长，前方有k辆车时的预计等待时间直接查表，O(1)。
+ * 每个请求的充电时长按其充电模式对应的充电功率计算；无法估算的请求按0分钟计入，不影响后面请求的位置。
+ * 对象不可变，等候区队列变化后由调用方按版本号重新构建。
+ */
+public final class WaitTimeEstimator {
+
+    private final long version;
+    private final Map<String, Double> powerByMode;
+    // prefix[k]：排在最前面的k个请求的充电时长之和（分钟）
+    private final int[] prefix;
+
+    private WaitTimeEstimator(long version, Map<String, Double> powerByMode, int[] prefix) {
+        this.version = version;
+        this.powerByMode = powerByMode;
+        this.prefix = prefix;
+    }
+
+    /**
+     * 构建前缀和
+     *
+     * @param orderedRequests 按叫号顺序排列的等候区请求
+     * @param powerByMode 充电模式 -> 充电功率（kW）
+     * @param version 构建时等候区队列的版本号
+     */
+    public static WaitTimeEstimator build(List<ChargingRequest> orderedRequests,
+            Map<String, Double> powerByMode, long version) {
+        int[] prefix = new int[orderedRequests.size() + 1];
+        for (int i = 0; i < orderedRequests.size(); i++) {
+            ChargingRequest request = orderedRequests.get(i);
+            Double power = powerByMode.get(request.getChargingMode());
+            // 无法估算充电时长的请求按0分钟计入，保持下标与前方车辆数对应
+            int chargeMinutes = 0;
+            if (request.getChargingAmount() != null && power != null && power > 0) {
+                chargeMinutes = (int) Math.ceil((request.getChargingAmount() * 60) / power);
+            }
+            prefix[i + 1] = prefix[i] + chargeMinutes;
+        }
+        return new WaitTimeEstimator(version, new HashMap<>(powerByMode), prefix);
+    }
+
+    /**
+     * 是否仍与当前等候区和充电功率一致
+     */
+    public boolean isCurrent(long version, Map<String, Double> powerByMode) {
+        return this.version == version && this.powerByMode.equals(powerByMode);
+    }
+
+    /**
+     * 前方有carsAhead辆车时的累计充电时长（分钟），超过等候区车辆数时按全部车辆计算
+     */
+    public int estimateMinutes(int carsAhead) {
+        return prefix[Math.max(0, Math.min(carsAhead, prefix.length - 1))];
+    }
+}
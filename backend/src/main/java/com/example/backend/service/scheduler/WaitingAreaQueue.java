@@ -0,0 +1,351 @@
+package com.example.backend.service.scheduler;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.service.SystemConfigService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 等候区队列
+ * 在内存中维护等候区中未分配充电桩的请求（WAITING、PRIORITY_WAITING），
+ * 排序规则与叫号规则一致：优先等待请求全部排在普通等待请求前面，同类内部按创建时间排序。
+ *
+ * 全局队列和每种充电模式各一个跳表，插入、删除O(log n)，按顺序读取前k个只需遍历k个元素；
+ * 另用顺序统计树维护排名，查询前方车辆数O(log n)。
+ * 跳表读操作不加锁，写操作和排名查询串行执行，保证各结构一致。
+ * 重新加载时在新的索引中构建完成后整体替换，读操作看到的要么是旧的等候区，要么是新的，不会看到清空或构建到一半的状态。
+ * 启动时从数据库加载，之后在提交、修改、取消、分配和故障放回等操作的事务提交后增量更新；
+ * 分配写回冲突说明内存与数据库不一致，由调度方调用 {@link #reload()} 重新加载。
+ *
+ * 同时作为等候区的准入闸门：占用的位置数 = 已提交的普通等待请求数 + 正在提交中的请求数，
+ * 提交请求时用CAS无锁预占位置，等候区已满时直接拒绝，不查询数据库；
+ * 预占的位置在提交事务结束后释放，此时已提交的请求已计入普通等待请求数，不会少算。
+ * 优先等待请求不占用等候区容量，与原来按数据库计数的口径一致。每分钟从数据库重新加载一次进行校正。
+ */
+@Component
+public class WaitingAreaQueue {
+
+    /**
+     * 叫号顺序：优先等待在前，其次创建时间，最后按数据库ID和请求ID区分
+     */
+    private static final Comparator<Entry> CALL_ORDER = Comparator
+            .comparingInt((Entry entry) -> entry.priorityClass)
+            .thenComparing(entry -> entry.createTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(entry -> entry.id, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(entry -> entry.requestId);
+
+    @Autowired
+    private ChargingRequestMapper chargingRequestMapper;
+
+    @Autowired
+    private SystemConfigService systemConfigService;
+
+    // 当前的队列索引，重新加载时整体替换
+    private volatile Index index = new Index();
+
+    private volatile boolean loaded;
+
+    // 每次变化加1，供基于等候区的派生数据判断是否需要重新计算
+    private volatile long version;
+
+    // 等候区中普通等待请求数，只在持有本对象锁时修改
+    private volatile int normalCount;
+    // 已预占位置但尚未结束提交事务的请求数
+    private final AtomicInteger pendingAdmissions = new AtomicInteger();
+    // 等候区容量
+    private volatile int capacity = Integer.MAX_VALUE;
+
+    /**
+     * 从数据库重新加载等候区
+     */
+    public synchronized void reload() {
+        LambdaQueryWrapper<ChargingRequest> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.isNull(ChargingRequest::getChargingPileId)
+                   .in(ChargingRequest::getStatus,
+                       ChargingConstants.STATUS_WAITING, ChargingConstants.STATUS_PRIORITY_WAITING);
+        List<ChargingRequest> requests = chargingRequestMapper.selectList(queryWrapper);
+
+        // 在新的索引中构建，完成后一次替换，不加锁的读操作不会看到空的或构建到一半的等候区
+        Index rebuilt = new Index();
+        int count = 0;
+        for (ChargingRequest request : requests) {
+            Entry entry = new Entry(request);
+            rebuilt.add(entry);
+            if (entry.priorityClass != 0) {
+                count++;
+            }
+        }
+        index = rebuilt;
+        normalCount = count;
+        version++;
+        capacity = parseCapacity(
+                systemConfigService.getConfigValue(ChargingConstants.CONFIG_WAITING_AREA_CAPACITY), capacity);
+        loaded = true;
+    }
+
+    /**
+     * 定时从数据库重新加载，校正增量更新可能产生的偏差
+     */
+    @Scheduled(fixedRate = 60000)
+    public void reconcile() {
+        if (loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * 为新提交的请求预占一个等候区位置，无锁，不访问数据库
+     * 需要在提交请求的事务中调用，预占的位置在事务结束后释放；
+     * 事务提交时请求已通过 {@link #onEntered} 计入等候区，回滚时位置直接归还
+     *
+     * @return 是否预占成功，等候区已满时返回false
+     */
+    public boolean tryAdmit() {
+        ensureLoaded();
+        while (true) {
+            int pending = pendingAdmissions.get();
+            if (normalCount + pending >= capacity) {
+                return false;
+            }
+            if (pendingAdmissions.compareAndSet(pending, pending + 1)) {
+                break;
+            }
+        }
+        TransactionHooks.afterCompletion(pendingAdmissions::decrementAndGet);
+        return true;
+    }
+
+    /**
+     * 等候区是否已满，不预占位置
+     */
+    public boolean isFull() {
+        ensureLoaded();
+        return normalCount + pendingAdmissions.get() >= capacity;
+    }
+
+    /**
+     * 等候区容量配置变更后同步更新
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSystemConfigChanged(SystemConfigChangedEvent event) {
+        String value = event.getChangedValues().get(ChargingConstants.CONFIG_WAITING_AREA_CAPACITY);
+        if (value != null) {
+            capacity = parseCapacity(value, capacity);
+        }
+    }
+
+    /**
+     * 按叫号顺序返回等候区全部请求的副本，调用方可以修改
+     */
+    public List<ChargingRequest> getRequests() {
+        ensureLoaded();
+        return toRequests(index.queue, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按叫号顺序返回指定充电模式排在最前面的limit个请求的副本
+     */
+    public List<ChargingRequest> peekByMode(String chargingMode, int limit) {
+        ensureLoaded();
+        NavigableSet<Entry> modeQueue = index.queuesByMode.get(chargingMode);
+        return modeQueue != null ? toRequests(modeQueue, limit) : new ArrayList<>();
+    }
+
+    /**
+     * 按叫号顺序返回排在最前面的limit个请求的副本（不区分充电模式）
+     */
+    public List<ChargingRequest> peek(int limit) {
+        ensureLoaded();
+        return toRequests(index.queue, limit);
+    }
+
+    /**
+     * 等候区队列的版本号，队列内容每次变化后递增
+     */
+    public long getVersion() {
+        ensureLoaded();
+        return version;
+    }
+
+    /**
+     * 等候区中是否有优先等待请求
+     */
+    public boolean hasPriorityRequests() {
+        ensureLoaded();
+        // 只读取一次队首，队列在判断和读取之间被清空时不会抛出异常
+        Iterator<Entry> iterator = index.queue.iterator();
+        return iterator.hasNext() && iterator.next().priorityClass == 0;
+    }
+
+    /**
+     * 按叫号顺序排在指定请求前面的请求数（不区分充电模式），O(log n)
+     * 按请求的状态和创建时间定位，请求本身不在等候区时也能计算
+     */
+    public int countBefore(ChargingRequest request) {
+        ensureLoaded();
+        Entry probe = new Entry(request);
+        synchronized (this) {
+            return index.ranks.rank(probe);
+        }
+    }
+
+    /**
+     * 请求进入等候区：提交、修改充电量或模式、故障后放回等候区
+     * 已在等候区的请求按新的状态和充电量替换
+     */
+    public void onEntered(ChargingRequest request) {
+        ChargingRequest entered = StationSnapshot.copyOf(request);
+        TransactionHooks.afterCommit(() -> apply(() -> {
+            remove(entered.getRequestId());
+            add(entered);
+        }));
+    }
+
+    /**
+     * 请求离开等候区：取消、被调度到充电桩
+     */
+    public void onLeft(ChargingRequest request) {
+        String requestId = request.getRequestId();
+        TransactionHooks.afterCommit(() -> apply(() -> remove(requestId)));
+    }
+
+    /**
+     * 一批请求离开等候区
+     */
+    public void onLeft(Collection<ChargingRequest> requests) {
+        List<String> requestIds = new ArrayList<>();
+        for (ChargingRequest request : requests) {
+            requestIds.add(request.getRequestId());
+        }
+        TransactionHooks.afterCommit(() -> apply(() -> requestIds.forEach(this::remove)));
+    }
+
+    private synchronized void apply(Runnable update) {
+        // 尚未加载时不需要增量更新，加载时会读取最新状态
+        if (loaded) {
+            update.run();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void add(ChargingRequest request) {
+        Entry entry = new Entry(request);
+        index.add(entry);
+        if (entry.priorityClass != 0) {
+            normalCount++;
+        }
+        version++;
+    }
+
+    private void remove(String requestId) {
+        Entry entry = index.remove(requestId);
+        if (entry != null) {
+            if (entry.priorityClass != 0) {
+                normalCount--;
+            }
+            version++;
+        }
+    }
+
+    private static int parseCapacity(String value, int defaultValue) {
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // 配置格式错误，保留原值
+            }
+        }
+        return defaultValue;
+    }
+
+    private static List<ChargingRequest> toRequests(NavigableSet<Entry> source, int limit) {
+        List<ChargingRequest> requests = new ArrayList<>();
+        for (Entry entry : source) {
+            if (requests.size() >= limit) {
+                break;
+            }
+            requests.add(StationSnapshot.copyOf(entry.request));
+        }
+        return requests;
+    }
+
+    /**
+     * 等候区的各个索引，修改只在持有 {@link WaitingAreaQueue} 的锁时进行
+     */
+    private static class Index {
+        // 请求ID -> 队列元素
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final NavigableSet<Entry> queue = new ConcurrentSkipListSet<>(CALL_ORDER);
+        // 充电模式 -> 该模式的队列
+        private final Map<String, NavigableSet<Entry>> queuesByMode = new ConcurrentHashMap<>();
+        // 排名索引，与全局队列同序，只在持有外部对象锁时访问
+        private final OrderStatisticTree<Entry> ranks = new OrderStatisticTree<>(CALL_ORDER);
+
+        void add(Entry entry) {
+            entries.put(entry.requestId, entry);
+            queue.add(entry);
+            ranks.add(entry);
+            queuesByMode.computeIfAbsent(entry.chargingMode, k -> new ConcurrentSkipListSet<>(CALL_ORDER)).add(entry);
+        }
+
+        Entry remove(String requestId) {
+            Entry entry = entries.remove(requestId);
+            if (entry != null) {
+                queue.remove(entry);
+                ranks.remove(entry);
+                NavigableSet<Entry> modeQueue = queuesByMode.get(entry.chargingMode);
+                if (modeQueue != null) {
+                    modeQueue.remove(entry);
+                }
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * 等候区队列元素，排序字段在创建时固定
+     */
+    private static class Entry {
+        private final int priorityClass;  // 0：优先等待，1：普通等待
+        private final LocalDateTime createTime;
+        private final Long id;
+        private final String requestId;
+        private final String chargingMode;
+        private final ChargingRequest request;
+
+        Entry(ChargingRequest request) {
+            this.priorityClass = ChargingConstants.STATUS_PRIORITY_WAITING.equals(request.getStatus()) ? 0 : 1;
+            this.createTime = request.getCreateTime();
+            this.id = request.getId();
+            this.requestId = request.getRequestId();
+            this.chargingMode = request.getChargingMode();
+            this.request = request;
+        }
+    }
+}
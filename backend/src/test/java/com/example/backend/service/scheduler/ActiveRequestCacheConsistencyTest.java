@@ -0,0 +1,169 @@
+package com.example.backend.service.scheduler;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.model.dto.ChargingRequestDTO;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.model.entity.User;
+import com.example.backend.service.ChargingPileMonitorService;
+import com.example.backend.service.ChargingPileService;
+import com.example.backend.service.ChargingRequestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 活跃请求缓存一致性测试
+ * 开启一致性校验模式后依次执行提交、开始、结束、取消、修改和充电桩故障放回等候区，
+ * 每次状态变化前后都经缓存读取活跃请求，命中时与数据库比对，最后检查没有发现不一致。
+ *
+ * 测试数据中慢充桩全部不可用，慢充请求停留在等候区；调度在后台线程中进行，等待分配时直接查询数据库
+ */
+@SpringBootTest
+class ActiveRequestCacheConsistencyTest {
+
+    // 等待调度或充电桩监控完成的最长时间（毫秒），监控每5秒检查一次
+    private static final long AWAIT_MILLIS = 15000;
+
+    @Autowired
+    private ChargingRequestService chargingRequestService;
+
+    @Autowired
+    private ChargingPileService chargingPileService;
+
+    @Autowired
+    private ChargingPileMonitorService chargingPileMonitorService;
+
+    @Autowired
+    private ChargingRequestMapper chargingRequestMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ActiveRequestCache activeRequestCache;
+
+    @Test
+    void invalidationPathsKeepCacheConsistent() throws InterruptedException {
+        activeRequestCache.setConsistencyCheck(true);
+
+        // 提交、开始充电、结束充电
+        Long first = createUser("cache-check-1");
+        assertNull(active(first));
+        submit(first, ChargingConstants.MODE_FAST, 10.0);
+        assertNotNull(active(first));
+        awaitActive(first, this::isQueueFirst);
+        assertEquals(ChargingConstants.STATUS_CHARGING, chargingRequestService.startCharging(first).getStatus());
+        assertEquals(ChargingConstants.STATUS_CHARGING, active(first).getStatus());
+        assertEquals(ChargingConstants.STATUS_COMPLETED, chargingRequestService.stopCharging(first).getStatus());
+        assertNull(active(first));
+
+        // 等候区中修改充电量、修改充电模式，取消已分配充电桩的请求
+        Long second = createUser("cache-check-2");
+        submit(second, ChargingConstants.MODE_SLOW, 5.0);
+        assertEquals(5.0, active(second).getChargingAmount());
+        chargingRequestService.modifyActiveRequest(second, new ChargingRequestDTO(ChargingConstants.MODE_SLOW, 6.0));
+        assertEquals(6.0, active(second).getChargingAmount());
+        chargingRequestService.modifyActiveRequest(second, new ChargingRequestDTO(ChargingConstants.MODE_FAST, 6.0));
+        assertEquals(ChargingConstants.MODE_FAST, active(second).getChargingMode());
+        awaitActive(second, request -> request.getChargingPileId() != null);
+        assertEquals(ChargingConstants.STATUS_CANCELED, chargingRequestService.cancelRequest(second).getStatus());
+        assertNull(active(second));
+
+        // 排队中的充电桩故障：请求放回等候区，再被调度到另一个快充桩
+        Long third = createUser("cache-check-3");
+        submit(third, ChargingConstants.MODE_FAST, 10.0);
+        ChargingRequest queued = awaitActive(third, this::isQueueFirst);
+        togglePile(queued.getChargingPileId());
+        ChargingRequest reassigned = awaitActive(third, request -> isQueueFirst(request)
+                && !request.getChargingPileId().equals(queued.getChargingPileId()));
+
+        // 充电中的充电桩故障：请求结束，剩余电量生成新的优先等待请求
+        assertEquals(ChargingConstants.STATUS_CHARGING, chargingRequestService.startCharging(third).getStatus());
+        // 让监控记录充电桩进入充电中，之后的故障按充电中故障处理
+        chargingPileMonitorService.monitorPileStatusChanges();
+        togglePile(reassigned.getChargingPileId());
+        ChargingRequest requeued = awaitActive(third, request ->
+                ChargingConstants.STATUS_PRIORITY_WAITING.equals(request.getStatus()));
+        assertNotEquals(reassigned.getRequestId(), requeued.getRequestId());
+        assertEquals(ChargingConstants.STATUS_CANCELED, chargingRequestService.cancelRequest(third).getStatus());
+        assertNull(active(third));
+
+        Map<String, Object> metrics = activeRequestCache.getMetrics();
+        assertTrue((Long) metrics.get("hits") > 0, "一致性校验没有命中任何缓存项");
+        assertEquals(0L, metrics.get("mismatches"), "缓存与数据库不一致: " + metrics);
+    }
+
+    private Long createUser(String username) {
+        User user = new User(username, "password", "user", 100.0, 0.0);
+        userMapper.insert(user);
+        return user.getId();
+    }
+
+    private void submit(Long userId, String chargingMode, double chargingAmount) {
+        String status = chargingRequestService.submitRequest(userId,
+                new ChargingRequestDTO(chargingMode, chargingAmount)).getStatus();
+        assertEquals(ChargingConstants.STATUS_WAITING, status);
+    }
+
+    /**
+     * 经缓存读取两次：第一次未命中时加载，第二次命中并与数据库比对
+     */
+    private ChargingRequest active(Long userId) {
+        chargingRequestService.getActiveRequest(userId);
+        return chargingRequestService.getActiveRequest(userId);
+    }
+
+    /**
+     * 等待数据库中用户的活跃请求满足条件，再经缓存读取并核对
+     * 等待期间不经缓存读取，避免与后台调度的事务提交交错
+     */
+    private ChargingRequest awaitActive(Long userId, Predicate<ChargingRequest> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + AWAIT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            List<ChargingRequest> requests = chargingRequestMapper.selectList(new LambdaQueryWrapper<ChargingRequest>()
+                    .eq(ChargingRequest::getUserId, userId)
+                    .in(ChargingRequest::getStatus,
+                        ChargingConstants.STATUS_WAITING,
+                        ChargingConstants.STATUS_PRIORITY_WAITING,
+                        ChargingConstants.STATUS_CHARGING));
+            if (requests.size() == 1 && condition.test(requests.get(0))) {
+                ChargingRequest cached = active(userId);
+                assertEquals(requests.get(0).getRequestId(), cached.getRequestId());
+                assertEquals(requests.get(0).getStatus(), cached.getStatus());
+                return cached;
+            }
+            Thread.sleep(50);
+        }
+        fail("等待活跃请求状态变化超时，用户ID: " + userId);
+        return null;
+    }
+
+    private boolean isQueueFirst(ChargingRequest request) {
+        return ChargingConstants.STATUS_WAITING.equals(request.getStatus())
+                && request.getChargingPileId() != null
+                && Integer.valueOf(1).equals(request.getQueuePosition());
+    }
+
+    /**
+     * 与管理员关闭充电桩的操作一致，之后由充电桩监控处理受影响的请求
+     */
+    private void togglePile(Integer pileId) {
+        ChargingPile pile = chargingPileService.getById(pileId);
+        assertTrue(chargingPileService.togglePileStatus(pile.getPileNumber()));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.backend.service.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.example.backend.service.scheduler.BatchBruteForce.TOLERANCE;
+import static com.example.backend.service.scheduler.BatchBruteForce.assertFeasible;
+import static com.example.backend.service.scheduler.BatchBruteForce.optimalTotalTime;
+import static com.example.backend.service.scheduler.BatchBruteForce.totalTime;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 限时单批次求解器测试
+ * 局部搜索不保证最优：随机小实例上检查 下界 <= 穷举最优解 <= 返回的总时长，
+ * 且截止时间充足时结果是局部最优（没有改进的迁移和交换）；截止时间已过时仍返回完整的分配
+ */
+class AnytimeBatchSolverTest {
+
+    private static final long GENEROUS_BUDGET_NANOS = 1_000_000_000L;
+
+    @Test
+    void boundedByBruteForceOnRandomInstances() {
+        Random random = new Random(3);
+        for (int round = 0; round < 500; round++) {
+            int n = 1 + random.nextInt(6);
+            int m = 1 + random.nextInt(3);
+            BatchBruteForce.Instance instance = round % 2 == 0
+                    ? BatchBruteForce.randomInstance(random, n, m, 3)
+                    : BatchBruteForce.randomUnorderedInstance(random, n, m, 3);
+            double optimum = optimalTotalTime(instance);
+
+            AnytimeBatchSolver.Result result = solve(instance, System.nanoTime() + GENEROUS_BUDGET_NANOS);
+            if (Double.isNaN(optimum)) {
+                assertNull(result, "车位不足时应返回null: " + instance);
+                continue;
+            }
+            assertFeasible(instance, result.getAssignments());
+            assertFalse(result.isBudgetExhausted());
+            assertEquals(totalTime(instance, result.getAssignments()), result.getTotalTime(), TOLERANCE);
+            assertTrue(result.getLowerBound() <= optimum + TOLERANCE, "下界高于最优解: " + instance);
+            assertTrue(optimum <= result.getTotalTime() + TOLERANCE, instance.toString());
+            assertLocallyOptimal(instance, result.getAssignments());
+        }
+    }
+
+    @Test
+    void neverUsesPilesWithoutCapacity() {
+        BatchBruteForce.Instance instance = new BatchBruteForce.Instance(
+                new double[] {0, 0, 50},
+                new int[] {0, 3, -1},
+                new double[][] {{10, 40, 10}, {20, 80, 20}, {30, 120, 30}});
+        AnytimeBatchSolver.Result result = solve(instance, System.nanoTime() + GENEROUS_BUDGET_NANOS);
+        assertArrayEquals(new int[] {1, 1, 1}, result.getAssignments());
+
+        assertNull(AnytimeBatchSolver.solve(new double[] {0, 0}, new int[] {0, 0}, new double[][] {{10, 10}},
+                System.nanoTime() + GENEROUS_BUDGET_NANOS));
+    }
+
+    @Test
+    void singlePile() {
+        BatchBruteForce.Instance instance = new BatchBruteForce.Instance(
+                new double[] {15}, new int[] {3}, new double[][] {{30}, {10}, {20}});
+        AnytimeBatchSolver.Result result = solve(instance, System.nanoTime() + GENEROUS_BUDGET_NANOS);
+        assertArrayEquals(new int[] {0, 0, 0}, result.getAssignments());
+        assertEquals(145, result.getTotalTime(), TOLERANCE);
+        assertEquals(0, result.getGap(), TOLERANCE);
+
+        assertNull(AnytimeBatchSolver.solve(new double[] {15}, new int[] {2}, instance.chargingTimes,
+                System.nanoTime() + GENEROUS_BUDGET_NANOS));
+    }
+
+    @Test
+    void largeBatchBoundedByExactSolution() {
+        BatchBruteForce.Instance instance = largeInstance();
+        assertFalse(BatchDPSolver.canSolve(instance.capacities, instance.chargingTimes));
+        double exact = totalTime(instance, SlotAssignmentSolver.solve(
+                instance.waitTimes, instance.capacities, instance.chargingTimes));
+
+        AnytimeBatchSolver.Result result = solve(instance, System.nanoTime() + GENEROUS_BUDGET_NANOS);
+        assertFeasible(instance, result.getAssignments());
+        assertTrue(result.getLowerBound() <= exact + TOLERANCE);
+        assertTrue(exact <= result.getTotalTime() + TOLERANCE);
+        assertLocallyOptimal(instance, result.getAssignments());
+    }
+
+    @Test
+    void expiredDeadlineStillReturnsCompleteAssignment() {
+        BatchBruteForce.Instance instance = largeInstance();
+        AnytimeBatchSolver.Result result = solve(instance, System.nanoTime() - 1);
+        assertNotNull(result);
+        assertTrue(result.isBudgetExhausted());
+        assertFeasible(instance, result.getAssignments());
+        assertEquals(totalTime(instance, result.getAssignments()), result.getTotalTime(), TOLERANCE);
+    }
+
+    /**
+     * 超出DP状态表预算的实例：12个充电桩各容纳4辆车，40辆车
+     */
+    private static BatchBruteForce.Instance largeInstance() {
+        BatchBruteForce.Instance instance = BatchBruteForce.randomInstance(new Random(9), 40, 12, 0);
+        Arrays.fill(instance.capacities, 4);
+        return instance;
+    }
+
+    private static AnytimeBatchSolver.Result solve(BatchBruteForce.Instance instance, long deadlineNanos) {
+        return AnytimeBatchSolver.solve(instance.waitTimes, instance.capacities, instance.chargingTimes, deadlineNanos);
+    }
+
+    /**
+     * 把一辆车迁移到有空位的充电桩，或交换两辆不同充电桩上的车，都不能降低总时长
+     */
+    private static void assertLocallyOptimal(BatchBruteForce.Instance instance, int[] assignments) {
+        int n = assignments.length;
+        int m = instance.waitTimes.length;
+        double total = totalTime(instance, assignments);
+        int[] counts = new int[m];
+        for (int pile : assignments) {
+            counts[pile]++;
+        }
+        int[] moved = assignments.clone();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                if (j != assignments[i] && counts[j] < instance.capacities[j]) {
+                    moved[i] = j;
+                    assertTrue(totalTime(instance, moved) >= total - TOLERANCE, "存在改进的迁移: " + instance);
+                    moved[i] = assignments[i];
+                }
+            }
+            for (int k = i + 1; k < n; k++) {
+                if (assignments[i] != assignments[k]) {
+                    moved[i] = assignments[k];
+                    moved[k] = assignments[i];
+                    assertTrue(totalTime(instance, moved) >= total - TOLERANCE, "存在改进的交换: " + instance);
+                    moved[i] = assignments[i];
+                    moved[k] = assignments[k];
+                }
+            }
+        }
+    }
+}
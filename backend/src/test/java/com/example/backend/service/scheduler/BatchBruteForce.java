@@ -0,0 +1,133 @@
+package com.example.backend.service.scheduler;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 单批次调度求解器测试的公共部分：随机小实例和穷举最优解
+ * 目标函数统一用 {@link BatchOptimizer#calculateTotalWaitingAndChargingTime}，与调度写回时的排队方式一致
+ */
+final class BatchBruteForce {
+
+    static final double TOLERANCE = 1e-6;
+
+    private static final double[] POWERS = {30.0, 7.0, 15.0};
+
+    private BatchBruteForce() {
+    }
+
+    /**
+     * 一个单批次实例
+     */
+    static final class Instance {
+        final double[] waitTimes;
+        final int[] capacities;
+        final double[][] chargingTimes;
+
+        Instance(double[] waitTimes, int[] capacities, double[][] chargingTimes) {
+            this.waitTimes = waitTimes;
+            this.capacities = capacities;
+            this.chargingTimes = chargingTimes;
+        }
+
+        @Override
+        public String toString() {
+            return "waits=" + Arrays.toString(waitTimes)
+                    + " caps=" + Arrays.toString(capacities)
+                    + " times=" + Arrays.deepToString(chargingTimes);
+        }
+    }
+
+    /**
+     * 随机实例：充电时间由充电量除以充电桩功率得到，功率相同的充电桩列相同，各桩上车辆的长短顺序一致
+     * 容量取0..maxCapacity，可能出现车位不足的实例
+     */
+    static Instance randomInstance(Random random, int n, int m, int maxCapacity) {
+        double[] waitTimes = new double[m];
+        int[] capacities = new int[m];
+        double[] powers = new double[m];
+        for (int j = 0; j < m; j++) {
+            waitTimes[j] = random.nextInt(120);
+            capacities[j] = random.nextInt(maxCapacity + 1);
+            powers[j] = POWERS[random.nextInt(POWERS.length)];
+        }
+        double[][] chargingTimes = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            double amount = 5 + random.nextInt(46);
+            for (int j = 0; j < m; j++) {
+                chargingTimes[i][j] = SchedulingSupport.calculateChargingTime(amount, powers[j]);
+            }
+        }
+        return new Instance(waitTimes, capacities, chargingTimes);
+    }
+
+    /**
+     * 随机实例：充电时间矩阵任意取值，各桩上车辆的长短顺序可以不同
+     */
+    static Instance randomUnorderedInstance(Random random, int n, int m, int maxCapacity) {
+        Instance instance = randomInstance(random, n, m, maxCapacity);
+        for (double[] row : instance.chargingTimes) {
+            for (int j = 0; j < m; j++) {
+                row[j] = 1 + random.nextInt(200);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 枚举满足容量限制的全部分配，返回最小总时长；没有可行分配时返回 {@link Double#NaN}
+     */
+    static double optimalTotalTime(Instance instance) {
+        int n = instance.chargingTimes.length;
+        int m = instance.waitTimes.length;
+        int[] assignments = new int[n];
+        int[] counts = new int[m];
+        double[] best = {Double.NaN};
+        enumerate(instance, 0, assignments, counts, best);
+        return n == 0 ? 0 : best[0];
+    }
+
+    private static void enumerate(Instance instance, int vehicle, int[] assignments, int[] counts, double[] best) {
+        if (vehicle == assignments.length) {
+            double total = totalTime(instance, assignments);
+            if (Double.isNaN(best[0]) || total < best[0]) {
+                best[0] = total;
+            }
+            return;
+        }
+        for (int j = 0; j < counts.length; j++) {
+            if (counts[j] < instance.capacities[j]) {
+                counts[j]++;
+                assignments[vehicle] = j;
+                enumerate(instance, vehicle + 1, assignments, counts, best);
+                counts[j]--;
+            }
+        }
+    }
+
+    static double totalTime(Instance instance, int[] assignments) {
+        return BatchOptimizer.calculateTotalWaitingAndChargingTime(
+                assignments, instance.waitTimes, instance.chargingTimes);
+    }
+
+    /**
+     * 检查分配完整且不超过各充电桩的容量
+     */
+    static void assertFeasible(Instance instance, int[] assignments) {
+        assertNotNull(assignments, "可行实例不应返回null: " + instance);
+        assertEquals(instance.chargingTimes.length, assignments.length);
+        int[] counts = new int[instance.waitTimes.length];
+        for (int pile : assignments) {
+            assertTrue(pile >= 0 && pile < counts.length, "充电桩下标越界: " + pile);
+            counts[pile]++;
+        }
+        for (int j = 0; j < counts.length; j++) {
+            assertTrue(counts[j] <= Math.max(instance.capacities[j], 0),
+                    "充电桩" + j + "超出容量: " + instance);
+        }
+    }
+}
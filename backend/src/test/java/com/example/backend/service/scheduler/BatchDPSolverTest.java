@@ -0,0 +1,95 @@
+package com.example.backend.service.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.example.backend.service.scheduler.BatchBruteForce.TOLERANCE;
+import static com.example.backend.service.scheduler.BatchBruteForce.assertFeasible;
+import static com.example.backend.service.scheduler.BatchBruteForce.optimalTotalTime;
+import static com.example.backend.service.scheduler.BatchBruteForce.totalTime;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 单批次精确DP求解器测试
+ * 随机小实例上与穷举最优解比较总时长，并覆盖容量为0、单个充电桩和超出状态表预算的实例
+ */
+class BatchDPSolverTest {
+
+    @Test
+    void matchesBruteForceOnRandomInstances() {
+        Random random = new Random(2);
+        for (int round = 0; round < 500; round++) {
+            int n = 1 + random.nextInt(6);
+            int m = 1 + random.nextInt(3);
+            BatchBruteForce.Instance instance = BatchBruteForce.randomInstance(random, n, m, 3);
+            assertTrue(BatchDPSolver.canSolve(instance.capacities, instance.chargingTimes), instance.toString());
+            double optimum = optimalTotalTime(instance);
+
+            int[] assignments = BatchDPSolver.solve(instance.waitTimes, instance.capacities, instance.chargingTimes);
+            if (Double.isNaN(optimum)) {
+                assertNull(assignments, "车位不足时应返回null: " + instance);
+                continue;
+            }
+            assertFeasible(instance, assignments);
+            assertEquals(optimum, totalTime(instance, assignments), TOLERANCE, instance.toString());
+        }
+    }
+
+    @Test
+    void neverUsesPilesWithoutCapacity() {
+        double[][] chargingTimes = {{10, 40, 10}, {20, 80, 20}, {30, 120, 30}};
+        int[] capacities = {0, 3, -1};
+        assertTrue(BatchDPSolver.canSolve(capacities, chargingTimes));
+        assertArrayEquals(new int[] {1, 1, 1}, BatchDPSolver.solve(new double[] {0, 0, 50}, capacities, chargingTimes));
+
+        assertNull(BatchDPSolver.solve(new double[] {0, 0}, new int[] {0, 0}, new double[][] {{10, 10}}));
+    }
+
+    @Test
+    void singlePile() {
+        BatchBruteForce.Instance instance = new BatchBruteForce.Instance(
+                new double[] {15}, new int[] {3}, new double[][] {{30}, {10}, {20}});
+        int[] assignments = BatchDPSolver.solve(instance.waitTimes, instance.capacities, instance.chargingTimes);
+        assertArrayEquals(new int[] {0, 0, 0}, assignments);
+        assertEquals(145, totalTime(instance, assignments), TOLERANCE);
+
+        assertNull(BatchDPSolver.solve(new double[] {15}, new int[] {2}, instance.chargingTimes));
+        assertArrayEquals(new int[0], BatchDPSolver.solve(new double[] {15}, new int[] {0}, new double[0][]));
+    }
+
+    @Test
+    void rejectsInstancesBeyondTableBudget() {
+        // 10个充电桩各容纳6辆车：7^10个状态，超出预算，不能分配状态表
+        Random random = new Random(8);
+        BatchBruteForce.Instance instance = BatchBruteForce.randomInstance(random, 12, 10, 0);
+        Arrays.fill(instance.capacities, 6);
+        assertFalse(BatchDPSolver.canSolve(instance.capacities, instance.chargingTimes));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchDPSolver.solve(instance.waitTimes, instance.capacities, instance.chargingTimes));
+
+        // 状态数乘积超出int范围
+        int[] huge = new int[40];
+        Arrays.fill(huge, Integer.MAX_VALUE);
+        double[][] times = new double[40][40];
+        assertFalse(BatchDPSolver.canSolve(huge, times));
+        assertThrows(IllegalArgumentException.class, () -> BatchDPSolver.solve(new double[40], huge, times));
+
+        // 没有充电桩
+        assertFalse(BatchDPSolver.canSolve(new int[0], new double[][] {{}}));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchDPSolver.solve(new double[0], new int[0], new double[][] {{}}));
+    }
+
+    @Test
+    void rejectsInconsistentChargingTimeOrder() {
+        // 车辆0在充电桩0上更长、在充电桩1上更短，按长短顺序加入的前提不成立
+        assertFalse(BatchDPSolver.canSolve(new int[] {2, 2}, new double[][] {{50, 10}, {20, 30}}));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.service.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.example.backend.service.scheduler.BatchBruteForce.TOLERANCE;
+import static com.example.backend.service.scheduler.BatchBruteForce.assertFeasible;
+import static com.example.backend.service.scheduler.BatchBruteForce.optimalTotalTime;
+import static com.example.backend.service.scheduler.BatchBruteForce.totalTime;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 槽位指派求解器测试
+ * 随机小实例上与穷举最优解比较总时长，并覆盖容量为0、单个充电桩和超出DP规模的实例
+ */
+class SlotAssignmentSolverTest {
+
+    @Test
+    void matchesBruteForceOnRandomInstances() {
+        Random random = new Random(1);
+        for (int round = 0; round < 500; round++) {
+            int n = 1 + random.nextInt(6);
+            int m = 1 + random.nextInt(3);
+            BatchBruteForce.Instance instance = round % 2 == 0
+                    ? BatchBruteForce.randomInstance(random, n, m, 3)
+                    : BatchBruteForce.randomUnorderedInstance(random, n, m, 3);
+            double optimum = optimalTotalTime(instance);
+
+            int[] assignments = SlotAssignmentSolver.solve(
+                    instance.waitTimes, instance.capacities, instance.chargingTimes);
+            if (Double.isNaN(optimum)) {
+                assertNull(assignments, "车位不足时应返回null: " + instance);
+                continue;
+            }
+            assertFeasible(instance, assignments);
+            assertEquals(optimum, totalTime(instance, assignments), TOLERANCE, instance.toString());
+        }
+    }
+
+    @Test
+    void neverUsesPilesWithoutCapacity() {
+        BatchBruteForce.Instance instance = new BatchBruteForce.Instance(
+                new double[] {0, 0, 50},
+                new int[] {0, 3, -1},
+                new double[][] {{10, 40, 10}, {20, 80, 20}, {30, 120, 30}});
+        int[] assignments = SlotAssignmentSolver.solve(
+                instance.waitTimes, instance.capacities, instance.chargingTimes);
+        assertArrayEquals(new int[] {1, 1, 1}, assignments);
+
+        assertNull(SlotAssignmentSolver.solve(new double[] {0, 0}, new int[] {0, 0}, new double[][] {{10, 10}}));
+    }
+
+    @Test
+    void singlePile() {
+        BatchBruteForce.Instance instance = new BatchBruteForce.Instance(
+                new double[] {15}, new int[] {3}, new double[][] {{30}, {10}, {20}});
+        int[] assignments = SlotAssignmentSolver.solve(
+                instance.waitTimes, instance.capacities, instance.chargingTimes);
+        assertArrayEquals(new int[] {0, 0, 0}, assignments);
+        // 按最短充电时间优先：完成时间依次为 25、45、75
+        assertEquals(145, totalTime(instance, assignments), TOLERANCE);
+
+        assertNull(SlotAssignmentSolver.solve(new double[] {15}, new int[] {2}, instance.chargingTimes));
+        assertArrayEquals(new int[0], SlotAssignmentSolver.solve(new double[] {15}, new int[] {0}, new double[0][]));
+    }
+
+    @Test
+    void solvesBatchesBeyondDPLimits() {
+        Random random = new Random(7);
+        int m = 12;
+        int n = 40;
+        BatchBruteForce.Instance instance = BatchBruteForce.randomInstance(random, n, m, 0);
+        Arrays.fill(instance.capacities, 4);
+        assertFalse(BatchDPSolver.canSolve(instance.capacities, instance.chargingTimes));
+
+        int[] assignments = SlotAssignmentSolver.solve(
+                instance.waitTimes, instance.capacities, instance.chargingTimes);
+        assertFeasible(instance, assignments);
+
+        // 精确解不低于下界，也不差于从贪心出发的局部搜索
+        double total = totalTime(instance, assignments);
+        assertTrue(total >= AnytimeBatchSolver.lowerBound(
+                instance.waitTimes, instance.capacities, instance.chargingTimes) - TOLERANCE);
+        AnytimeBatchSolver.Result local = AnytimeBatchSolver.solve(instance.waitTimes, instance.capacities,
+                instance.chargingTimes, System.nanoTime() + 1_000_000_000L);
+        assertNotNull(local);
+        assertTrue(total <= local.getTotalTime() + TOLERANCE, total + " > " + local.getTotalTime());
+    }
+}
@@ -0,0 +1,5 @@
+-- H2没有MySQL的UNSIGNED类型，定义同名类型供 CAST(... AS UNSIGNED) 使用
+CREATE DOMAIN IF NOT EXISTS `UNSIGNED` AS BIGINT;
+
+-- 慢充桩全部不可用，慢充请求停留在等候区，用于验证等候区中的修改
+UPDATE `charging_pile` SET `status` = 'UNAVAILABLE' WHERE `pile_type` = 'SLOW';
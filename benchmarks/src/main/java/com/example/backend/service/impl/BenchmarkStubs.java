@@ -0,0 +1,82 @@
+package com.example.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基准测试用的桩对象
+ * 不启动Spring容器和数据库，Mapper返回固定实体，依赖通过反射注入
+ */
+final class BenchmarkStubs {
+
+    private BenchmarkStubs() {
+    }
+
+    /**
+     * 创建Mapper桩：按ID、条件查询都返回同一个实体，其余默认方法按接口默认实现执行
+     */
+    static <M> M mapper(Class<M> mapperType, Object entity) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "selectById":
+                case "selectOne":
+                    return entity;
+                case "selectList":
+                    return entity != null ? List.of(entity) : Collections.emptyList();
+                case "selectCount":
+                    return entity != null ? 1L : 0L;
+                case "toString":
+                    return "BenchmarkStub(" + mapperType.getSimpleName() + ")";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    if (method.isDefault()) {
+                        return InvocationHandler.invokeDefault(proxy, method, args);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        };
+        return mapperType.cast(Proxy.newProxyInstance(
+                mapperType.getClassLoader(), new Class<?>[] {mapperType}, handler));
+    }
+
+    /**
+     * 按字段名注入依赖（包括父类中声明的字段）
+     */
+    static void inject(Object target, String fieldName, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // 继续在父类中查找
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException(target.getClass().getName() + " 中没有字段 " + fieldName);
+    }
+
+    /**
+     * 初始化实体的表信息，使LambdaQueryWrapper可以在没有MyBatis环境时解析列名
+     */
+    static void initTableInfo(Class<?>... entityTypes) {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        for (Class<?> entityType : entityTypes) {
+            if (TableInfoHelper.getTableInfo(entityType) == null) {
+                TableInfoHelper.initTableInfo(assistant, entityType);
+            }
+        }
+    }
+}
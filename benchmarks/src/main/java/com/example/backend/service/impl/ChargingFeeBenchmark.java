@@ -0,0 +1,59 @@
+package com.example.backend.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分时电价计费的基准测试
+ * SHORT：30分钟，不跨电价时段；MULTI_DAY：50小时，跨越3个自然日的全部时段
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChargingFeeBenchmark {
+
+    @Param({"SHORT", "MULTI_DAY"})
+    private String session;
+
+    private ChargingBillServiceImpl chargingBillService;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private double chargedAmount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        chargingBillService = new ChargingBillServiceImpl();
+        BenchmarkStubs.inject(chargingBillService, "pricingService", new PricingServiceImpl());
+
+        startTime = LocalDateTime.of(2025, 6, 1, 11, 15, 30);
+        if ("SHORT".equals(session)) {
+            endTime = startTime.plusMinutes(30);
+            chargedAmount = 15.0;
+        } else {
+            endTime = startTime.plusHours(50);
+            chargedAmount = 350.0;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateChargingFeeWithTimeBasedPricing() {
+        return chargingBillService.calculateChargingFeeWithTimeBasedPricing(startTime, endTime, chargedAmount);
+    }
+}
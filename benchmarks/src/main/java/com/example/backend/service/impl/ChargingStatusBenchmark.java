@@ -0,0 +1,139 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.mapper.ChargingPileMapper;
+import com.example.backend.mapper.ChargingRequestMapper;
+import com.example.backend.mapper.SystemConfigMapper;
+import com.example.backend.mapper.UserMapper;
+import com.example.backend.model.dto.ChargingStatusDTO;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.model.entity.SystemConfig;
+import com.example.backend.model.entity.User;
+import com.example.backend.service.scheduler.ActiveRequestCache;
+import com.example.backend.service.scheduler.EtaEngine;
+import com.example.backend.service.scheduler.PileLoadIndex;
+import com.example.backend.service.scheduler.WaitingAreaQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建充电状态DTO的基准测试
+ * 使用真实的服务实现，Mapper替换为返回固定实体的桩，只测量服务层的计算开销
+ * 排队中的请求经真实的EtaEngine推演，充电桩负载索引和等候区从同样的桩加载：请求在充电桩队列中，等候区为空
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChargingStatusBenchmark {
+
+    @Param({"WAITING", "CHARGING", "COMPLETED"})
+    private String status;
+
+    private ChargingRequestServiceImpl chargingRequestService;
+    private String requestId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkStubs.initTableInfo(ChargingRequest.class, ChargingPile.class, User.class, SystemConfig.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        ChargingRequest request = new ChargingRequest();
+        request.setId(1L);
+        request.setRequestId("F1");
+        request.setUserId(1L);
+        request.setChargingMode(ChargingConstants.MODE_FAST);
+        request.setChargingAmount(40.0);
+        request.setStatus(status);
+        request.setCreateTime(now.minusHours(2));
+        request.setChargingPileId(1);
+        request.setQueuePosition(ChargingConstants.STATUS_WAITING.equals(status) ? 1 : null);
+        if (!ChargingConstants.STATUS_WAITING.equals(status)) {
+            request.setStartTime(now.minusMinutes(45));
+        }
+        if (ChargingConstants.STATUS_COMPLETED.equals(status)) {
+            request.setEndTime(now.minusMinutes(5));
+        }
+        requestId = request.getRequestId();
+
+        ChargingPile pile = new ChargingPile("F001", ChargingConstants.PILE_TYPE_FAST, 30.0,
+                ChargingConstants.STATUS_CHARGING.equals(status)
+                        ? ChargingConstants.PILE_STATUS_CHARGING : ChargingConstants.PILE_STATUS_AVAILABLE);
+        pile.setId(1);
+
+        User user = new User();
+        user.setId(1L);
+        user.setBatteryCapacity(80.0);
+        user.setCurrentPower(20.0);
+
+        PricingServiceImpl pricingService = new PricingServiceImpl();
+
+        ChargingBillServiceImpl chargingBillService = new ChargingBillServiceImpl();
+        BenchmarkStubs.inject(chargingBillService, "pricingService", pricingService);
+
+        ChargingPileServiceImpl chargingPileService = new ChargingPileServiceImpl();
+        BenchmarkStubs.inject(chargingPileService, "baseMapper", BenchmarkStubs.mapper(ChargingPileMapper.class, pile));
+
+        UserServiceImpl userService = new UserServiceImpl();
+        BenchmarkStubs.inject(userService, "userMapper", BenchmarkStubs.mapper(UserMapper.class, user));
+
+        // 配置都取默认值
+        SystemConfigServiceImpl systemConfigService = new SystemConfigServiceImpl();
+        BenchmarkStubs.inject(systemConfigService, "baseMapper", BenchmarkStubs.mapper(SystemConfigMapper.class, null));
+
+        // 只有充电区中的请求进入充电桩负载和活跃请求缓存
+        ChargingRequest activeRequest = ChargingConstants.STATUS_COMPLETED.equals(status) ? null : request;
+        PileLoadIndex pileLoadIndex = new PileLoadIndex();
+        BenchmarkStubs.inject(pileLoadIndex, "chargingPileMapper", BenchmarkStubs.mapper(ChargingPileMapper.class, pile));
+        BenchmarkStubs.inject(pileLoadIndex, "chargingRequestMapper",
+                BenchmarkStubs.mapper(ChargingRequestMapper.class, activeRequest));
+        BenchmarkStubs.inject(pileLoadIndex, "systemConfigService", systemConfigService);
+
+        WaitingAreaQueue waitingAreaQueue = new WaitingAreaQueue();
+        BenchmarkStubs.inject(waitingAreaQueue, "chargingRequestMapper",
+                BenchmarkStubs.mapper(ChargingRequestMapper.class, null));
+        BenchmarkStubs.inject(waitingAreaQueue, "systemConfigService", systemConfigService);
+
+        EtaEngine etaEngine = new EtaEngine();
+        BenchmarkStubs.inject(etaEngine, "pileLoadIndex", pileLoadIndex);
+        BenchmarkStubs.inject(etaEngine, "waitingAreaQueue", waitingAreaQueue);
+
+        ActiveRequestCache activeRequestCache = new ActiveRequestCache();
+        BenchmarkStubs.inject(activeRequestCache, "chargingRequestMapper",
+                BenchmarkStubs.mapper(ChargingRequestMapper.class, activeRequest));
+
+        chargingRequestService = new ChargingRequestServiceImpl();
+        BenchmarkStubs.inject(chargingRequestService, "baseMapper",
+                BenchmarkStubs.mapper(ChargingRequestMapper.class, request));
+        BenchmarkStubs.inject(chargingRequestService, "userService", userService);
+        BenchmarkStubs.inject(chargingRequestService, "chargingPileService", chargingPileService);
+        BenchmarkStubs.inject(chargingRequestService, "chargingBillService", chargingBillService);
+        BenchmarkStubs.inject(chargingRequestService, "pricingService", pricingService);
+        BenchmarkStubs.inject(chargingRequestService, "systemConstantService", new SystemConstantServiceImpl());
+        BenchmarkStubs.inject(chargingRequestService, "pileLoadIndex", pileLoadIndex);
+        BenchmarkStubs.inject(chargingRequestService, "waitingAreaQueue", waitingAreaQueue);
+        BenchmarkStubs.inject(chargingRequestService, "etaEngine", etaEngine);
+        BenchmarkStubs.inject(chargingRequestService, "activeRequestCache", activeRequestCache);
+    }
+
+    @Benchmark
+    public ChargingStatusDTO getChargingStatus() {
+        return chargingRequestService.getChargingStatus(requestId);
+    }
+}
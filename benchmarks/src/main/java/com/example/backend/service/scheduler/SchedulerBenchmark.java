@@ -0,0 +1,82 @@
+package com.example.backend.service.scheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单批次调度求解与目标函数的基准测试
+ * n为批次车辆数，m为充电桩数，每个充电桩容量足以容纳整批车辆的一半
+ * 求解与调度走同一路径：DP状态表在预算内时用精确DP，否则用槽位指派
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+
+    @Param({"4", "8", "12"})
+    private int n;
+
+    @Param({"2", "5", "10"})
+    private int m;
+
+    private double[] pileCurrentWaitTimes;
+    private int[] pileCapacities;
+    private double[][] vehicleChargingTimes;
+    private int[] assignments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+
+        pileCurrentWaitTimes = new double[m];
+        pileCapacities = new int[m];
+        double[] pilePowers = new double[m];
+        for (int j = 0; j < m; j++) {
+            pileCurrentWaitTimes[j] = random.nextInt(120);
+            pileCapacities[j] = Math.max(1, (n + 1) / 2);
+            pilePowers[j] = j % 2 == 0 ? 30.0 : 7.0;
+        }
+
+        vehicleChargingTimes = new double[n][m];
+        assignments = new int[n];
+        for (int i = 0; i < n; i++) {
+            double amount = 5 + random.nextInt(46);
+            for (int j = 0; j < m; j++) {
+                vehicleChargingTimes[i][j] = SchedulingSupport.calculateChargingTime(amount, pilePowers[j]);
+            }
+            assignments[i] = i % m;
+        }
+    }
+
+    @Benchmark
+    public Object solveSingleBatch() {
+        return BatchOptimizer.solveSingleBatchExact(n, m, pileCurrentWaitTimes, pileCapacities, vehicleChargingTimes);
+    }
+
+    @Benchmark
+    public double calculateTotalWaitingAndChargingTime() {
+        return BatchOptimizer.calculateTotalWaitingAndChargingTime(
+                assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+    }
+
+    @Benchmark
+    public double calculateMakespan() {
+        return BatchOptimizer.calculateMakespan(assignments, pileCurrentWaitTimes, vehicleChargingTimes);
+    }
+}
@@ -195,6 +195,135 @@ export function useAdmin() {
   }
 }
 
+/**
+ * 用户推送的共享SSE连接
+ * 所有组件共用一个 /stream 连接，按事件名称（charging-status、queue-status、notification、pricing）分发；
+ * 第一个订阅者建立连接，最后一个订阅者取消后关闭连接；
+ * 断线后重新建立连接时带上收到的最后一个事件ID，服务端只补发断线期间错过的事件
+ */
+const STREAM_EVENTS = ['charging-status', 'queue-status', 'notification', 'pricing']
+// 通知逐条处理，不缓存给之后的订阅者
+const NOTIFICATION_EVENT = 'notification'
+const RECONNECT_DELAY = 3000
+
+// 事件名称 -> 订阅回调集合
+const streamHandlers = new Map()
+// 事件名称 -> 最近一次收到的状态，供连接建立后才订阅的组件立即使用
+const latestStates = new Map()
+let streamSource = null
+let reconnectTimer = null
+// 收到的最后一个事件ID，新建的EventSource不会自动带上，通过查询参数传递
+let lastEventId = ''
+
+function subscriberCount() {
+  let count = 0
+  streamHandlers.forEach(handlers => { count += handlers.size })
+  return count
+}
+
+function dispatch(eventName, event) {
+  if (event.lastEventId) {
+    lastEventId = event.lastEventId
+  }
+  let data
+  try {
+    data = JSON.parse(event.data)
+  } catch (err) {
+    console.error(`解析推送数据失败: ${eventName}`, err)
+    return
+  }
+  if (eventName !== NOTIFICATION_EVENT) {
+    latestStates.set(eventName, data)
+  }
+  const handlers = streamHandlers.get(eventName)
+  if (handlers) {
+    handlers.forEach(handler => handler(data))
+  }
+}
+
+function openStream() {
+  const token = localStorage.getItem('jwt')
+  if (!token) {
+    console.error('未找到JWT令牌，无法建立SSE连接')
+    return
+  }
+
+  let url = `/api/stream?token=${token}`
+  if (lastEventId) {
+    url += `&lastEventId=${encodeURIComponent(lastEventId)}`
+  }
+  streamSource = new EventSource(url)
+  STREAM_EVENTS.forEach(eventName => {
+    streamSource.addEventListener(eventName, event => dispatch(eventName, event))
+  })
+
+  streamSource.onerror = (err) => {
+    console.error('SSE连接错误', err)
+    closeStream()
+
+    // 3秒后尝试重新连接
+    reconnectTimer = setTimeout(() => {
+      reconnectTimer = null
+      if (subscriberCount() > 0) {
+        openStream()
+      }
+    }, RECONNECT_DELAY)
+  }
+}
+
+function closeStream() {
+  if (streamSource) {
+    streamSource.close()
+    streamSource = null
+  }
+}
+
+/**
+ * 推送订阅的组合式函数
+ */
+export function useEventStream() {
+  /**
+   * 订阅指定事件
+   * 已收到过的状态会立即回调一次
+   * @param {string} eventName 事件名称
+   * @param {Function} handler 回调，参数为解析后的数据
+   * @returns {Function} 取消订阅
+   */
+  function subscribe(eventName, handler) {
+    if (!streamHandlers.has(eventName)) {
+      streamHandlers.set(eventName, new Set())
+    }
+    streamHandlers.get(eventName).add(handler)
+
+    if (latestStates.has(eventName)) {
+      handler(latestStates.get(eventName))
+    }
+    if (!streamSource && !reconnectTimer) {
+      openStream()
+    }
+
+    return () => {
+      const handlers = streamHandlers.get(eventName)
+      if (handlers) {
+        handlers.delete(handler)
+      }
+      if (subscriberCount() === 0) {
+        closeStream()
+        latestStates.clear()
+        lastEventId = ''
+        if (reconnectTimer) {
+          clearTimeout(reconnectTimer)
+          reconnectTimer = null
+        }
+      }
+    }
+  }
+
+  return {
+    subscribe
+  }
+}
+
 /**
  * 通知相关的组合式函数
  */
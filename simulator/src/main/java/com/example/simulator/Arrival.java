@@ -0,0 +1,28 @@
+package com.example.simulator;
+
+/**
+ * 一次车辆到达
+ */
+public class Arrival {
+    private final double minute;         // 到达时间（距模拟开始的分钟数）
+    private final String chargingMode;   // 充电模式：fast或slow
+    private final double chargingAmount; // 请求充电量，单位kWh
+
+    public Arrival(double minute, String chargingMode, double chargingAmount) {
+        this.minute = minute;
+        this.chargingMode = chargingMode;
+        this.chargingAmount = chargingAmount;
+    }
+
+    public double getMinute() {
+        return minute;
+    }
+
+    public String getChargingMode() {
+        return chargingMode;
+    }
+
+    public double getChargingAmount() {
+        return chargingAmount;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.simulator;
+
+import com.example.backend.constant.ChargingConstants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 到达序列的读取与生成
+ */
+public final class ArrivalTraces {
+
+    private ArrivalTraces() {
+    }
+
+    /**
+     * 读取CSV到达序列
+     * 每行格式：到达分钟,充电模式,充电量（如 12.5,fast,30），以#开头的行和表头会被跳过
+     */
+    public static List<Arrival> loadCsv(Path path) throws IOException {
+        List<Arrival> arrivals = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            if (fields.length < 3) {
+                throw new IllegalArgumentException("第" + lineNumber + "行格式错误: " + line);
+            }
+            double minute;
+            try {
+                minute = Double.parseDouble(fields[0].trim());
+            } catch (NumberFormatException e) {
+                if (arrivals.isEmpty()) {
+                    continue; // 表头
+                }
+                throw new IllegalArgumentException("第" + lineNumber + "行到达时间错误: " + line, e);
+            }
+            arrivals.add(new Arrival(minute, fields[1].trim().toLowerCase(), Double.parseDouble(fields[2].trim())));
+        }
+        arrivals.sort(Comparator.comparingDouble(Arrival::getMinute));
+        return arrivals;
+    }
+
+    /**
+     * 生成到达序列（非齐次泊松过程，使用稀疏化方法）
+     *
+     * @param ratePerHour 基准到达率（辆/小时）
+     * @param hours 模拟时长（小时）
+     * @param peaky 是否使用早晚高峰的到达率曲线
+     * @param fastRatio 快充请求占比
+     * @param minAmount 最小充电量
+     * @param maxAmount 最大充电量
+     * @param seed 随机种子
+     */
+    public static List<Arrival> generate(double ratePerHour, double hours, boolean peaky, double fastRatio,
+            double minAmount, double maxAmount, long seed) {
+        Random random = new Random(seed);
+        double maxRate = ratePerHour * (peaky ? peakMultiplier() : 1.0);
+        double endMinute = hours * 60;
+
+        List<Arrival> arrivals = new ArrayList<>();
+        double minute = 0;
+        while (true) {
+            // 按最大到达率生成候选到达，再按当前到达率接受
+            minute += -Math.log(1 - random.nextDouble()) / maxRate * 60;
+            if (minute >= endMinute) {
+                break;
+            }
+            double rate = ratePerHour * (peaky ? rateMultiplier(minute) : 1.0);
+            if (random.nextDouble() * maxRate > rate) {
+                continue;
+            }
+            String mode = random.nextDouble() < fastRatio ? ChargingConstants.MODE_FAST : ChargingConstants.MODE_SLOW;
+            double amount = Math.round((minAmount + random.nextDouble() * (maxAmount - minAmount)) * 10) / 10.0;
+            arrivals.add(new Arrival(minute, mode, amount));
+        }
+        return arrivals;
+    }
+
+    /**
+     * 一天内的到达率倍数：夜间低谷，早高峰7-9点，晚高峰17-20点
+     */
+    static double rateMultiplier(double minute) {
+        double hourOfDay = (minute / 60) % 24;
+        if (hourOfDay < 6) {
+            return 0.3;
+        } else if (hourOfDay >= 7 && hourOfDay < 9) {
+            return 2.5;
+        } else if (hourOfDay >= 17 && hourOfDay < 20) {
+            return peakMultiplier();
+        }
+        return 1.0;
+    }
+
+    private static double peakMultiplier() {
+        return 3.0;
+    }
+}
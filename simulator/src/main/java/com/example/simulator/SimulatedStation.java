@@ -0,0 +1,190 @@
+package com.example.simulator;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.model.entity.ChargingRequest;
+import com.example.backend.service.SchedulerService;
+import com.example.backend.service.scheduler.StationSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 内存中的充电站模型，在虚拟时钟上推进离散事件
+ * 事件包括车辆到达和充电完成；同一时刻的事件处理完后执行一轮调度（与线上事件驱动的调度触发一致），
+ * 调度直接调用 {@link SchedulerService#planAssignments}，分配结果应用到内存中的请求上。
+ * 与线上不同的是，车辆排到队首且充电桩空闲时立即开始充电。
+ */
+public class SimulatedStation {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final double EPS = 1e-9;
+
+    private final SchedulerService schedulerService;
+    private final List<ChargingPile> piles;
+    private final Map<String, String> configValues;
+    private final int waitingAreaCapacity;
+
+    // 活跃请求（WAITING、CHARGING）
+    private final List<ChargingRequest> activeRequests = new ArrayList<>();
+    private final Map<ChargingRequest, Double> arrivalMinutes = new IdentityHashMap<>();
+    private final Map<Integer, ChargingPile> pilesById = new HashMap<>();
+    private final PriorityQueue<Completion> completions = new PriorityQueue<>(
+            Comparator.comparingDouble(Completion::minute));
+
+    private final SimulationReport report;
+    private long nextId = 1;
+
+    public SimulatedStation(SchedulerService schedulerService, List<ChargingPile> piles,
+            Map<String, String> configValues, String strategy) {
+        this.schedulerService = schedulerService;
+        this.piles = piles;
+        this.configValues = configValues;
+        this.waitingAreaCapacity = Integer.parseInt(
+                configValues.getOrDefault(ChargingConstants.CONFIG_WAITING_AREA_CAPACITY, "6"));
+        for (ChargingPile pile : piles) {
+            pilesById.put(pile.getId(), pile);
+        }
+        this.report = new SimulationReport(strategy, piles);
+    }
+
+    /**
+     * 按到达序列运行模拟，直到所有车辆完成充电或无法继续调度
+     */
+    public SimulationReport run(List<Arrival> arrivals) {
+        int next = 0;
+        while (true) {
+            double nextArrival = next < arrivals.size() ? arrivals.get(next).getMinute() : Double.MAX_VALUE;
+            double nextCompletion = completions.isEmpty() ? Double.MAX_VALUE : completions.peek().minute();
+            double minute = Math.min(nextArrival, nextCompletion);
+            if (minute == Double.MAX_VALUE) {
+                break; // 没有后续事件，剩余的请求无法被调度
+            }
+
+            // 处理同一时刻的全部事件，合并为一轮调度
+            while (!completions.isEmpty() && completions.peek().minute() <= minute + EPS) {
+                complete(completions.poll());
+            }
+            while (next < arrivals.size() && arrivals.get(next).getMinute() <= minute + EPS) {
+                submit(arrivals.get(next++), minute);
+            }
+
+            startIdlePiles(minute);
+            schedule(minute);
+            startIdlePiles(minute);
+        }
+
+        for (ChargingRequest request : activeRequests) {
+            if (ChargingConstants.STATUS_WAITING.equals(request.getStatus())) {
+                report.recordUnserved();
+            }
+        }
+        return report;
+    }
+
+    private void submit(Arrival arrival, double minute) {
+        long waitingCount = activeRequests.stream()
+                .filter(request -> ChargingConstants.STATUS_WAITING.equals(request.getStatus()))
+                .filter(request -> request.getChargingPileId() == null)
+                .count();
+        if (waitingCount >= waitingAreaCapacity) {
+            report.recordRejected(); // 等候区已满
+            return;
+        }
+
+        ChargingRequest request = new ChargingRequest();
+        request.setId(nextId);
+        request.setRequestId((ChargingConstants.MODE_FAST.equals(arrival.getChargingMode())
+                ? ChargingConstants.REQUEST_PREFIX_FAST : ChargingConstants.REQUEST_PREFIX_SLOW) + nextId);
+        nextId++;
+        request.setChargingMode(arrival.getChargingMode());
+        request.setChargingAmount(arrival.getChargingAmount());
+        request.setStatus(ChargingConstants.STATUS_WAITING);
+        request.setCreateTime(toTime(minute));
+
+        activeRequests.add(request);
+        arrivalMinutes.put(request, minute);
+    }
+
+    /**
+     * 执行一轮调度，记录求解耗时
+     */
+    private void schedule(double minute) {
+        boolean hasWaiting = activeRequests.stream().anyMatch(request ->
+                ChargingConstants.STATUS_WAITING.equals(request.getStatus()) && request.getChargingPileId() == null);
+        if (!hasWaiting) {
+            return;
+        }
+
+        StationSnapshot snapshot = new StationSnapshot(toTime(minute), piles, activeRequests, configValues);
+        long start = System.nanoTime();
+        schedulerService.planAssignments(snapshot);
+        report.recordTick(System.nanoTime() - start);
+    }
+
+    /**
+     * 空闲充电桩上排在队首的车辆立即开始充电
+     */
+    private void startIdlePiles(double minute) {
+        for (ChargingRequest request : activeRequests) {
+            if (!ChargingConstants.STATUS_WAITING.equals(request.getStatus())
+                    || request.getChargingPileId() == null
+                    || request.getQueuePosition() == null
+                    || request.getQueuePosition() != 1) {
+                continue;
+            }
+            ChargingPile pile = pilesById.get(request.getChargingPileId());
+            if (!ChargingConstants.PILE_STATUS_AVAILABLE.equals(pile.getStatus())) {
+                continue;
+            }
+
+            request.setStatus(ChargingConstants.STATUS_CHARGING);
+            request.setStartTime(toTime(minute));
+            pile.setStatus(ChargingConstants.PILE_STATUS_CHARGING);
+
+            double chargingMinutes = request.getChargingAmount() / pile.getChargingPower() * 60;
+            completions.add(new Completion(minute + chargingMinutes, request, pile));
+            report.recordStart(minute - arrivalMinutes.get(request), chargingMinutes, pile);
+        }
+    }
+
+    /**
+     * 充电完成：释放充电桩，同一充电桩队列中的请求位置前移
+     */
+    private void complete(Completion completion) {
+        ChargingRequest request = completion.request();
+        ChargingPile pile = completion.pile();
+
+        request.setStatus(ChargingConstants.STATUS_COMPLETED);
+        request.setEndTime(toTime(completion.minute()));
+        activeRequests.remove(request);
+        arrivalMinutes.remove(request);
+        pile.setStatus(ChargingConstants.PILE_STATUS_AVAILABLE);
+        report.recordCompletion(completion.minute());
+
+        List<ChargingRequest> queue = new ArrayList<>();
+        for (ChargingRequest queued : activeRequests) {
+            if (pile.getId().equals(queued.getChargingPileId())
+                    && ChargingConstants.STATUS_WAITING.equals(queued.getStatus())) {
+                queue.add(queued);
+            }
+        }
+        queue.sort(Comparator.comparing(ChargingRequest::getQueuePosition));
+        for (int i = 0; i < queue.size(); i++) {
+            queue.get(i).setQueuePosition(i + 1);
+        }
+    }
+
+    private static LocalDateTime toTime(double minute) {
+        return EPOCH.plusNanos(Math.round(minute * 60_000_000_000.0));
+    }
+
+    private record Completion(double minute, ChargingRequest request, ChargingPile pile) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.simulator;
+
+import com.example.backend.model.entity.ChargingPile;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 模拟结果统计
+ * 等待时间指从到达到开始充电的时间（分钟）
+ */
+public class SimulationReport {
+
+    private final String strategy;
+    private final List<ChargingPile> piles;
+    private final Map<Integer, Double> busyMinutes = new HashMap<>();
+
+    private double[] waits = new double[256];
+    private int served;
+    private double totalWait;
+    private double lastCompletion;
+    private int rejected;
+    private int unserved;
+
+    private long[] tickNanos = new long[256];
+    private int ticks;
+
+    public SimulationReport(String strategy, List<ChargingPile> piles) {
+        this.strategy = strategy;
+        this.piles = piles;
+    }
+
+    void recordStart(double waitMinutes, double chargingMinutes, ChargingPile pile) {
+        if (served == waits.length) {
+            waits = Arrays.copyOf(waits, served * 2);
+        }
+        waits[served++] = waitMinutes;
+        totalWait += waitMinutes;
+        busyMinutes.merge(pile.getId(), chargingMinutes, Double::sum);
+    }
+
+    void recordCompletion(double minute) {
+        lastCompletion = Math.max(lastCompletion, minute);
+    }
+
+    void recordTick(long nanos) {
+        if (ticks == tickNanos.length) {
+            tickNanos = Arrays.copyOf(tickNanos, ticks * 2);
+        }
+        tickNanos[ticks++] = nanos;
+    }
+
+    void recordRejected() {
+        rejected++;
+    }
+
+    void recordUnserved() {
+        unserved++;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int getServed() {
+        return served;
+    }
+
+    public double getTotalWait() {
+        return totalWait;
+    }
+
+    /**
+     * 最后一辆车完成充电的时间（分钟）
+     */
+    public double getMakespan() {
+        return lastCompletion;
+    }
+
+    public double getWaitPercentile(double percentile) {
+        double[] sorted = Arrays.copyOf(waits, served);
+        Arrays.sort(sorted);
+        return percentile(sorted, percentile);
+    }
+
+    /**
+     * 按充电桩类型统计的平均利用率（充电时间 / makespan）
+     */
+    public Map<String, Double> getUtilisationByType() {
+        Map<String, double[]> sums = new TreeMap<>();
+        for (ChargingPile pile : piles) {
+            double[] sum = sums.computeIfAbsent(pile.getPileType(), k -> new double[2]);
+            sum[0] += busyMinutes.getOrDefault(pile.getId(), 0.0);
+            sum[1]++;
+        }
+        Map<String, Double> utilisation = new TreeMap<>();
+        for (Map.Entry<String, double[]> entry : sums.entrySet()) {
+            double[] sum = entry.getValue();
+            utilisation.put(entry.getKey(), lastCompletion > 0 ? sum[0] / sum[1] / lastCompletion : 0.0);
+        }
+        return utilisation;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getUnserved() {
+        return unserved;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * 单轮调度求解耗时分位数（毫秒）
+     */
+    public double getTickMillisPercentile(double percentile) {
+        double[] sorted = new double[ticks];
+        for (int i = 0; i < ticks; i++) {
+            sorted[i] = tickNanos[i] / 1_000_000.0;
+        }
+        Arrays.sort(sorted);
+        return percentile(sorted, percentile);
+    }
+
+    public double getTickMillisMean() {
+        long sum = 0;
+        for (int i = 0; i < ticks; i++) {
+            sum += tickNanos[i];
+        }
+        return ticks == 0 ? 0 : sum / 1_000_000.0 / ticks;
+    }
+
+    /**
+     * 最近秩法计算分位数
+     */
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.simulator;
+
+import com.example.backend.constant.ChargingConstants;
+import com.example.backend.model.entity.ChargingPile;
+import com.example.backend.service.impl.SchedulerServiceImpl;
+import com.example.backend.service.scheduler.ScheduleStrategyRegistry;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 充电站离线模拟器入口
+ * 在同一条到达序列上分别运行各调度策略，输出等待时间、makespan、充电桩利用率和每轮调度求解耗时，
+ * 用于离线评估 schedule_strategy、fast_batch_threshold、slow_batch_threshold、pile_queue_length 的取值。
+ *
+ * 参数（均为可选）：
+ *   --trace FILE            CSV到达序列（到达分钟,充电模式,充电量），不指定时按下面的参数生成
+ *   --profile poisson|peaky 生成到达序列的到达率曲线，默认poisson
+ *   --rate N                基准到达率（辆/小时），默认60
+ *   --hours N               生成的时长（小时），默认24
+ *   --fast-ratio R          快充请求占比，默认0.6
+ *   --min-amount / --max-amount  充电量范围（kWh），默认5 / 50
+ *   --seed N                随机种子，默认42
+ *   --fast-piles N / --slow-piles N    充电桩数量，默认40 / 60
+ *   --fast-power P / --slow-power P    充电功率（kW），默认30 / 7
+ *   --strategy NAME|ALL     ORIGINAL、SINGLE_BATCH_OPTIMAL、FULL_BATCH_OPTIMAL 或 ALL，默认ALL
+ *   --queue-length N        pile_queue_length，默认2
+ *   --fast-threshold N / --slow-threshold N   批次调度阈值，默认2 / 3
+ *   --waiting-capacity N    等候区容量，默认取 充电桩总数 × 队列长度（至少50）
+ *
+ * FULL_BATCH_OPTIMAL 只在等候区车辆数不少于充电区全部车位（充电桩总数 × 队列长度）时叫号，
+ * 等候区容量小于车位数时该策略永远不会触发，运行前会输出提示。
+ */
+public class StationSimulator {
+
+    private static final String[] ALL_STRATEGIES = {
+        ChargingConstants.SCHEDULE_STRATEGY_ORIGINAL,
+        ChargingConstants.SCHEDULE_STRATEGY_SINGLE_BATCH_OPTIMAL,
+        ChargingConstants.SCHEDULE_STRATEGY_FULL_BATCH_OPTIMAL
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        List<Arrival> arrivals = options.containsKey("trace")
+            ? ArrivalTraces.loadCsv(Path.of(options.get("trace")))
+            : ArrivalTraces.generate(
+                doubleOption(options, "rate", 60),
+                doubleOption(options, "hours", 24),
+                "peaky".equalsIgnoreCase(options.getOrDefault("profile", "poisson")),
+                doubleOption(options, "fast-ratio", 0.6),
+                doubleOption(options, "min-amount", 5),
+                doubleOption(options, "max-amount", 50),
+                (long) doubleOption(options, "seed", 42));
+
+        int totalChargingSlots = (int) (doubleOption(options, "fast-piles", 40) + doubleOption(options, "slow-piles", 60))
+            * (int) doubleOption(options, "queue-length", 2);
+        options.putIfAbsent("waiting-capacity", String.valueOf(Math.max(50, totalChargingSlots)));
+
+        String strategyOption = options.getOrDefault("strategy", "ALL").toUpperCase();
+        String[] strategies = "ALL".equals(strategyOption) ? ALL_STRATEGIES : new String[] {strategyOption};
+
+        System.out.printf("到达车辆: %d, 快充桩: %s, 慢充桩: %s, 队列长度: %s, 等候区容量: %s%n",
+            arrivals.size(), options.getOrDefault("fast-piles", "40"), options.getOrDefault("slow-piles", "60"),
+            options.getOrDefault("queue-length", "2"), options.get("waiting-capacity"));
+        System.out.printf("%-22s %8s %8s %8s %12s %10s %8s %8s %8s %18s %8s %8s %8s %8s%n",
+            "strategy", "served", "rejected", "unserved", "totalWait", "makespan", "p50", "p95", "p99",
+            "utilisation", "ticks", "tickAvg", "tickP99", "wall(s)");
+
+        for (String strategy : strategies) {
+            ScheduleStrategyRegistry strategyRegistry = ScheduleStrategyRegistry.withBuiltInStrategies();
+            if (!strategyRegistry.switchTo(strategy)) {
+                System.out.printf("未知的调度策略: %s%n", strategy);
+                continue;
+            }
+            if (ChargingConstants.SCHEDULE_STRATEGY_FULL_BATCH_OPTIMAL.equals(strategy)
+                    && doubleOption(options, "waiting-capacity", 0) < totalChargingSlots) {
+                System.out.printf("注意: 等候区容量 %s 小于充电区车位数 %d，%s 永远不会触发调度%n",
+                    options.get("waiting-capacity"), totalChargingSlots, strategy);
+            }
+            SchedulerServiceImpl schedulerService = new SchedulerServiceImpl(strategyRegistry);
+            try {
+                SimulatedStation station = new SimulatedStation(
+                    schedulerService, buildPiles(options), buildConfig(options, strategy), strategy);
+
+                long start = System.nanoTime();
+                SimulationReport report = station.run(arrivals);
+                double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+                System.out.printf("%-22s %8d %8d %8d %12.1f %10.1f %8.1f %8.1f %8.1f %18s %8d %8.3f %8.3f %8.2f%n",
+                    strategy, report.getServed(), report.getRejected(), report.getUnserved(),
+                    report.getTotalWait(), report.getMakespan(),
+                    report.getWaitPercentile(50), report.getWaitPercentile(95), report.getWaitPercentile(99),
+                    formatUtilisation(report.getUtilisationByType()), report.getTicks(),
+                    report.getTickMillisMean(), report.getTickMillisPercentile(99), wallSeconds);
+            } finally {
+                schedulerService.shutdownPartitionPool();
+            }
+        }
+        System.out.println("时间单位：分钟；tickAvg/tickP99 为每轮调度求解耗时（毫秒）");
+    }
+
+    private static List<ChargingPile> buildPiles(Map<String, String> options) {
+        List<ChargingPile> piles = new ArrayList<>();
+        int fastPiles = (int) doubleOption(options, "fast-piles", 40);
+        int slowPiles = (int) doubleOption(options, "slow-piles", 60);
+        double fastPower = doubleOption(options, "fast-power", 30);
+        double slowPower = doubleOption(options, "slow-power", 7);
+
+        for (int i = 1; i <= fastPiles; i++) {
+            piles.add(newPile(piles.size() + 1, String.format("F%03d", i), ChargingConstants.PILE_TYPE_FAST, fastPower));
+        }
+        for (int i = 1; i <= slowPiles; i++) {
+            piles.add(newPile(piles.size() + 1, String.format("T%03d", i), ChargingConstants.PILE_TYPE_SLOW, slowPower));
+        }
+        return piles;
+    }
+
+    private static ChargingPile newPile(int id, String pileNumber, String pileType, double chargingPower) {
+        ChargingPile pile = new ChargingPile(pileNumber, pileType, chargingPower, ChargingConstants.PILE_STATUS_AVAILABLE);
+        pile.setId(id);
+        return pile;
+    }
+
+    private static Map<String, String> buildConfig(Map<String, String> options, String strategy) {
+        Map<String, String> config = new HashMap<>();
+        config.put(ChargingConstants.CONFIG_SCHEDULE_STRATEGY, strategy);
+        config.put(ChargingConstants.CONFIG_PILE_QUEUE_LENGTH, options.getOrDefault("queue-length", "2"));
+        config.put(ChargingConstants.CONFIG_FAST_BATCH_THRESHOLD, options.getOrDefault("fast-threshold", "2"));
+        config.put(ChargingConstants.CONFIG_SLOW_BATCH_THRESHOLD, options.getOrDefault("slow-threshold", "3"));
+        config.put(ChargingConstants.CONFIG_WAITING_AREA_CAPACITY, options.get("waiting-capacity"));
+        return config;
+    }
+
+    private static String formatUtilisation(Map<String, Double> utilisation) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Double> entry : utilisation.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(entry.getKey()).append('=').append(String.format("%.0f%%", entry.getValue() * 100));
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("参数格式错误: " + args[i] + "（应为 --name value）");
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        String value = options.get(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}